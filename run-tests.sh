@@ -8,6 +8,10 @@ help() {
     echo "    The script will then do a diff compare to make sure it's the same"
     echo "    No need to provide the .txt file if there's no output to test"
     echo "    If you expect the program to have a build fail place 'FAIL' on the first line rather than a number"
+    echo "    To compile with extra flags, add a comment listing them within the first three lines: E.g. // flags: --all-errors"
+    echo "    To check what the compiler prints, errors and warnings included, create a file with .err instead of .xy"
+    echo "    Colours are stripped from the compiler's output before it's compared"
+    echo "    A test expected to build fail also has to leave out.c as the test before it left it"
     echo
     exit 0
 }
@@ -38,8 +42,8 @@ while IFS= read -r file
 do
     rawName=$file
     file=$(basename "$file")
-    # Ignoring any other random files that aren't .txt or .xy
-    if ! (echo "$file" | grep -Eq "test_[0-9]+\.(xy|txt)$")
+    # Ignoring any other random files that aren't .txt, .err or .xy
+    if ! (echo "$file" | grep -Eq "test_[0-9]+\.(xy|txt|err)$")
     then
         echo "Skipping over ${YELLOW}${file}${RESET}: invalid filename"
         continue
@@ -64,14 +68,38 @@ do
     fi
 
     SUMMARY=$(head -n2 "$rawName" | tail -n1 | sed -e "s/\/\/ //g" | tr "[:lower:]" "[:upper:]")
+    FLAGS=$(head -n3 "$rawName" | grep -E "^// flags: " | sed -e "s/^\/\/ flags: //")
 
-    # Attempt to build the executable
-    java -jar build/libs/xy_java-1.0-SNAPSHOT.jar "$rawName"  >> /dev/null 2>&1
+    # A build that fails has to leave the last out.c as it was
+    OUT_BEFORE=$(cksum out.c 2>/dev/null)
+
+    # Attempt to build the executable, the flags split into words the same in zsh and bash
+    java -jar build/libs/xy_java-1.0-SNAPSHOT.jar "$rawName" $(echo "$FLAGS") > "tests/current_output.txt" 2>&1
+    BUILD_CODE=$?
+
+    # Compare what the compiler printed, if there's a file to compare it to
+    errFile=$(echo "$rawName" | sed -E "s/\.xy$/.err/")
+    if [ -f "$errFile" ]
+    then
+        if ! (sed -e "s/\x1b\[[0-9;]*m//g" "tests/current_output.txt" | diff - "$errFile")
+        then
+            echo "${SUMMARY}: ${RED}Fail${RESET} for ${YELLOW}${file}${RESET}, differing compiler output"
+            FAIL=$((FAIL + 1))
+            TOTAL=$((TOTAL + 1))
+            continue
+        fi
+    fi
 
     # Build failed
-    if [ "$?" -ne "0" ]
+    if [ "$BUILD_CODE" -ne "0" ]
     then
-        if [ "$EXIT_CODE" = "FAIL" ]
+        if [ "$EXIT_CODE" = "FAIL" ] && [ "$(cksum out.c 2>/dev/null)" != "$OUT_BEFORE" ]
+        then
+            echo "${SUMMARY}: ${RED}Fail${RESET} for ${YELLOW}${file}${RESET}, build failed but changed out.c"
+            FAIL=$((FAIL + 1))
+            TOTAL=$((TOTAL + 1))
+            continue
+        elif [ "$EXIT_CODE" = "FAIL" ]
         then 
             echo "${SUMMARY}: ${GREEN}Pass${RESET} for ${YELLOW}${file}${RESET}, expected to build fail"
             PASS=$((PASS + 1))
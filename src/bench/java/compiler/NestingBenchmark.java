@@ -0,0 +1,94 @@
+package compiler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import compiler.nodes.NodeProgram;
+
+// Compiles programs nested 1k, 10k and 100k levels deep, one shape of nesting at a time, on a thread
+// with a small stack. Parsing, verifying and generating keep their own work stacks, so every size
+// has to get through without a StackOverflowError, in time roughly linear in the depth. Nested array
+// literals aren't here, their type names grow with the depth so they're quadratic however they're walked
+public class NestingBenchmark {
+
+    private static final int[] DEPTHS = {1000, 10000, 100000};
+    private static final long STACK_BYTES = 256L << 10;
+
+    private static String expression(String declaration, String open, String middle, String close, int depth) {
+        StringBuilder sb = new StringBuilder("fn main() -> int {\n    ").append(declaration).append(" x = ");
+        sb.append(open.repeat(depth)).append(middle).append(close.repeat(depth));
+        return sb.append(";\n    out x;\n    return 0;\n}\n").toString();
+    }
+
+    private static String statement(String open, String middle, String close, int depth) {
+        StringBuilder sb = new StringBuilder("fn main() -> int {\n    int x = 1;\n    ");
+        sb.append(open.repeat(depth)).append(middle).append(close.repeat(depth));
+        return sb.append("\n    return 0;\n}\n").toString();
+    }
+
+    private static String elseIfChain(int depth) {
+        StringBuilder sb = new StringBuilder("fn main() -> int {\n    int x = 1;\n    if (x) { out x; }");
+        sb.append(" else if (x) { out x; }".repeat(depth));
+        return sb.append(" else { out x; }\n    return 0;\n}\n").toString();
+    }
+
+    private static String nestedCalls(int depth) {
+        return "fn f(int a) -> int {\n    return a;\n}\n" + expression("int", "f(", "1", ")", depth);
+    }
+
+    static final String[] NAMES = {
+        "parentheses", "negation", "binary", "scopes", "ifs", "else ifs", "whiles", "loops", "calls"
+    };
+
+    static final List<IntFunction<String>> SHAPES = List.of(
+        depth -> expression("int", "(", "1", ")", depth),
+        depth -> expression("int", "!", "1", "", depth),
+        depth -> expression("int", "1 - (", "1", ")", depth),
+        depth -> statement("{ ", "out x;", " }", depth),
+        depth -> statement("if (x) { ", "out x;", " }", depth),
+        NestingBenchmark::elseIfChain,
+        depth -> statement("while (x) { ", "break;", " }", depth),
+        depth -> statement("loop 2 { ", "out x;", " }", depth),
+        NestingBenchmark::nestedCalls
+    );
+
+    // Milliseconds to lex, parse, verify and generate the program, on a thread with a small stack
+    static long compile(String program) throws InterruptedException {
+        long[] elapsed = new long[1];
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                SourceFile source = SourceFile.fromString(program);
+                long start = System.nanoTime();
+                Error handler = new Error(source, "nesting.xy");
+                Interner symbols = new Interner();
+                TokenBuffer tokens = new Lexer(source, handler, symbols).tokenize();
+                NodeProgram tree = new Parser(tokens, new HashMap<>(), handler).parseProgram();
+                new Verifier(tree, symbols, new HashMap<>(), handler).verify();
+                String output = new Generator(tree).generateProgram();
+                elapsed[0] = (System.nanoTime() - start) / 1000000;
+                if (output.isEmpty())
+                    throw new IllegalStateException("Nothing was generated");
+            } catch (Throwable t) {
+                failure[0] = t;
+            }
+        }, "nesting", STACK_BYTES);
+        thread.start();
+        thread.join();
+        if (failure[0] != null)
+            throw new IllegalStateException("Failed to compile", failure[0]);
+        return elapsed[0];
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println(String.format("Stack: %d KB", STACK_BYTES >> 10));
+        for (int i = 0; i < SHAPES.size(); i++) {
+            StringBuilder line = new StringBuilder(String.format("%-12s", NAMES[i]));
+            for (int depth: DEPTHS)
+                line.append(String.format("  %6d deep: %6d ms", depth, compile(SHAPES.get(i).apply(depth))));
+            System.out.println(line);
+        }
+    }
+
+}
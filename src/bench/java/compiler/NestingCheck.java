@@ -0,0 +1,33 @@
+package compiler;
+
+// Fails the build when a shape of nesting stops scaling. Every shape in NestingBenchmark is compiled
+// 10k and 100k levels deep on the same small stack, and has to get through both without a
+// StackOverflowError, with the deeper one taking no more than linear time allows for. Linear is
+// ten times as long, the margin is there for the JIT and the collector
+public class NestingCheck {
+
+    private static final int DEPTH = 10000;
+    private static final int FACTOR = 10;
+    private static final long SLACK = 3;
+    private static final long FLOOR_MS = 1500;
+
+    public static void main(String[] args) throws InterruptedException {
+        int failures = 0;
+        for (int i = 0; i < NestingBenchmark.SHAPES.size(); i++) {
+            String shallow = NestingBenchmark.SHAPES.get(i).apply(DEPTH);
+            String deep = NestingBenchmark.SHAPES.get(i).apply(DEPTH * FACTOR);
+            NestingBenchmark.compile(shallow); // Warms up
+            long small = NestingBenchmark.compile(shallow);
+            long big = NestingBenchmark.compile(deep);
+            long limit = Math.max(FLOOR_MS, small * FACTOR * SLACK);
+            boolean passed = big <= limit;
+            if (!passed)
+                failures++;
+            System.out.println(String.format("%-12s %6d deep: %5d ms  %6d deep: %5d ms  %s", NestingBenchmark.NAMES[i],
+                    DEPTH, small, DEPTH * FACTOR, big, passed ? "ok" : "over " + limit + " ms"));
+        }
+        if (failures > 0)
+            throw new IllegalStateException(failures + " nesting shape(s) didn't scale linearly");
+    }
+
+}
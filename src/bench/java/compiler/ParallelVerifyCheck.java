@@ -0,0 +1,77 @@
+package compiler;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+
+// Fails the build when checking bodies in parallel stops paying for itself. Programs from the smallest the
+// verifier splits up to many times that are verified on one thread and then split as the pool allows.
+// Splitting may cost a little at the smallest size, within MARGIN, and has to be clearly faster at the
+// largest. With a single core there's nothing to split over, the verifier stays on one thread and the
+// timings are only printed
+public class ParallelVerifyCheck {
+
+    private static final int[] SIZES = { 2 * Verifier.MIN_CHUNK, 8 * Verifier.MIN_CHUNK, 64 * Verifier.MIN_CHUNK };
+    private static final double MARGIN = 1.1;
+    private static final double SPEEDUP = 0.9; // The largest has to take at most this much of one thread's time
+    private static final int WARMUP = 5;
+    private static final int RUNS = 15;
+
+    public static void main(String[] args) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        best(program(SIZES[SIZES.length - 1]), parallelism, WARMUP); // Warms up
+        int failures = 0;
+        for (int i = 0; i < SIZES.length; i++) {
+            long[] times = best(program(SIZES[i]), parallelism, RUNS);
+            double limit = (i == SIZES.length - 1) ? SPEEDUP : MARGIN;
+            boolean passed = parallelism < 2 || times[1] <= times[0] * limit;
+            if (!passed)
+                failures++;
+            System.out.println(String.format("%6d functions: %6.2f ms on one thread, %6.2f ms split over %d  %s", SIZES[i],
+                    times[0] / 1e6, times[1] / 1e6, parallelism, passed ? "ok" : "over " + limit + "x"));
+        }
+        if (parallelism < 2)
+            System.out.println("One core, the verifier doesn't split and there's nothing to compare");
+        if (failures > 0)
+            throw new IllegalStateException(failures + " program size(s) checked slower in parallel than allowed");
+    }
+
+    // Best times to verify the program on one thread and split, taken in turn so drift in the machine's
+    // speed hits both alike
+    private static long[] best(String text, int parallelism, int runs) {
+        long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+        for (int i = 0; i < runs; i++) {
+            best[0] = Math.min(best[0], time(text, 1));
+            best[1] = Math.min(best[1], time(text, parallelism));
+        }
+        return best;
+    }
+
+    // Time to verify a freshly parsed tree, so nothing is left from the last run
+    private static long time(String text, int parallelism) {
+        SourceFile source = SourceFile.fromString(text);
+        Error handler = new Error(source, "parallel.xy");
+        Interner symbols = new Interner();
+        TokenBuffer tokens = new Lexer(source, handler, symbols).tokenize();
+        Verifier verifier = new Verifier(new Parser(tokens, new HashMap<>(), handler).parseProgram(), symbols,
+                new HashMap<>(), handler);
+        verifier.useParallelism(parallelism);
+        System.gc(); // So neither mode pays to collect what the other left
+        long start = System.nanoTime();
+        verifier.verify();
+        return System.nanoTime() - start;
+    }
+
+    // Functions with a loop, branches and a call each, about the size of a typical one
+    private static String program(int functions) {
+        StringBuilder sb = new StringBuilder("fn helper(int x) -> int {\n    return x * 2;\n}\n");
+        for (int i = 0; i < functions; i++) {
+            sb.append("\nfn f").append(i).append("(int a, int b) -> int {\n");
+            sb.append("    mut int total = a;\n    mut int j = 0;\n    while j < b {\n");
+            sb.append("        if j < 3 {\n            total = total + j * 2;\n");
+            sb.append("        } else if j > 7 {\n            total = total - j;\n");
+            sb.append("        } else {\n            total = total + helper(j);\n        }\n");
+            sb.append("        j++;\n    }\n    return total;\n}\n");
+        }
+        return sb.append("\nfn main() -> int {\n    return f0(1, 10);\n}\n").toString();
+    }
+
+}
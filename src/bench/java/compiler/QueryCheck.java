@@ -0,0 +1,60 @@
+package compiler;
+import java.util.HashMap;
+
+// Fails the build when --watch redoes more than a change reaches. A program of callers and bystanders is
+// compiled through one QueryEngine a version at a time, and each version has to parse and check just the
+// functions its edit reaches, print nothing, and give the same C as compiling it fresh
+public class QueryCheck {
+
+    private static final int CALLERS = 8;
+
+    private static final String LEAF = "fn leaf(int a) -> int {\n    return a + 1;\n}\n";
+    private static final String LEAF_EDITED = "fn leaf(int a) -> int {\n    return a + 2;\n}\n";
+    private static final String LEAF_RETYPED = "fn leaf(int a) -> char {\n    out a;\n    return 'c';\n}\n";
+
+    public static void main(String[] args) {
+        QueryEngine engine = new QueryEngine(new HashMap<>());
+        int functions = 2 * CALLERS + 2;
+        expect(engine, "first version", program(LEAF, 1), functions, functions);
+        expect(engine, "unchanged version", program(LEAF, 1), 0, 0);
+        expect(engine, "edit inside a called body", program(LEAF_EDITED, 1), 1, 1);
+        expect(engine, "edit inside a bystander's body", program(LEAF_EDITED, 2), 1, 1);
+        // The retyped leaf is a line longer, so its callers move down, and a moved function that's checked
+        // again is parsed again too, for its diagnostics to point where it is now. The rest only moved
+        expect(engine, "changed signature", program(LEAF_RETYPED, 2), 1 + CALLERS, 1 + CALLERS);
+        System.out.println("Recompiled every version redoing only what its edit reaches");
+    }
+
+    // Leaf, then callers of it, then functions that don't call it, then main calling all of them
+    private static String program(String leaf, int step) {
+        StringBuilder sb = new StringBuilder(leaf);
+        for (int i = 0; i < CALLERS; i++)
+            sb.append(String.format("\nfn caller_%d(int a) -> void {\n    leaf(a);\n}\n", i));
+        for (int i = 0; i < CALLERS; i++)
+            sb.append(String.format("\nfn other_%d(int a) -> int {\n    return a - %d;\n}\n", i, (i == 3) ? step : 1));
+        sb.append("\nfn main() -> int {\n");
+        for (int i = 0; i < CALLERS; i++)
+            sb.append(String.format("    caller_%d(%d);\n    out other_%d(%d);\n", i, i, i, i));
+        return sb.append("    return 0;\n}\n").toString();
+    }
+
+    private static void expect(QueryEngine engine, String version, String text, int parsed, int checked) {
+        String incremental = compile(engine, version, text);
+        if (engine.getParsed() != parsed || engine.getChecked() != checked)
+            throw new IllegalStateException(String.format("%s: parsed %d and checked %d of %d functions, expected %d and %d",
+                    version, engine.getParsed(), engine.getChecked(), engine.size(), parsed, checked));
+        if (!incremental.equals(compile(new QueryEngine(new HashMap<>()), version, text)))
+            throw new IllegalStateException(version + ": C differs from compiling it fresh");
+    }
+
+    private static String compile(QueryEngine engine, String version, String text) {
+        SourceFile source = SourceFile.fromString(text);
+        Error handler = new Error(source, "query.xy");
+        String[] contents = new String[1];
+        Error.Captured captured = Error.capture(() -> contents[0] = engine.compile(source, handler));
+        if (captured.failed() || !captured.getOutput().isEmpty())
+            throw new IllegalStateException(version + ": didn't compile cleanly\n" + captured.getOutput());
+        return contents[0];
+    }
+
+}
@@ -0,0 +1,82 @@
+package compiler;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Puts every test and example source through a chain of random edits, re-lexing each version with
+// Lexer.relex from the one before, and fails the build unless every version's tokens, positions and
+// diagnostics are exactly what lexing it from scratch gives. The previous version's buffer has to be
+// left as it was
+public class RelexCheck {
+
+    private static final long SEED = 8;
+    private static final int EDITS_PER_SOURCE = 60;
+    private static final String[] INSERTS = {
+        "", " ", "\n", "\t", "x", "fn", "int", "else", " if", "else if", "it", "123", "-", "1-", "<", "<=", "->",
+        "=", "==", "{", "}", "(", ")", ";", "\"", "\"text\"", "'", "'c'", "//", "/*", "*/", "// note\n", "é", "名",
+        "fn f() -> void {\n}\n", "mut arr<int> a = [1, 2];"
+    };
+
+    private static int edits = 0;
+
+    public static void main(String[] args) throws IOException {
+        List<Path> sources;
+        try (Stream<Path> files = Stream.concat(Files.walk(Path.of("tests")), Files.walk(Path.of("codeExamples")))) {
+            sources = files.filter(p -> p.toString().endsWith(".xy")).sorted().collect(Collectors.toList());
+        }
+        Random random = new Random(SEED);
+        for (Path path: sources)
+            check(path, SourceFile.fromString(Files.readString(path)), random);
+        System.out.println(String.format("Relexed %d edits of %d sources, all as a full lex", edits, sources.size()));
+    }
+
+    private static void check(Path path, SourceFile original, Random random) {
+        TokenBuffer previous = new Lexer(original, new Error(original, path.toString()), new Interner()).tokenize();
+        for (int i = 0; i < EDITS_PER_SOURCE; i++) {
+            SourceFile source = previous.getSource();
+            int offset = random.nextInt(source.length() + 1);
+            int removed = random.nextInt(Math.min(8, source.length() - offset) + 1);
+            TextEdit edit = new TextEdit(offset, removed, INSERTS[random.nextInt(INSERTS.length)]);
+            SourceFile edited = edit.apply(source);
+            Error handler = new Error(edited, path.toString());
+
+            TokenBuffer last = previous;
+            String before = dump(previous);
+            int symbols = previous.getSymbols().size();
+            TokenChange[] change = new TokenChange[1];
+            TokenBuffer[] full = new TokenBuffer[1];
+            Error.Captured relexed = Error.capture(() -> change[0] = Lexer.relex(last, edit, handler));
+            Error.Captured lexed = Error.capture(() -> full[0] = new Lexer(edited, handler, new Interner()).tokenize());
+            edits++;
+
+            String where = String.format("%s, edit %d at %d removing %d inserting '%s'", path, i, offset, removed, edit.getInserted());
+            if (!dump(previous).equals(before) || previous.getSymbols().size() != symbols)
+                throw new IllegalStateException("Relexing changed the previous buffer, " + where);
+            if (relexed.failed() || lexed.failed()) {
+                if (relexed.failed() != lexed.failed() || !relexed.getOutput().equals(lexed.getOutput()))
+                    throw new IllegalStateException("Relexing reported differently, " + where);
+                continue; // No tokens to carry on from, the next edit goes on the same version
+            }
+            if (!dump(change[0].getTokens()).equals(dump(full[0])))
+                throw new IllegalStateException("Relexed tokens differ from a full lex, " + where);
+            if (change[0].getTokens().size() != last.size() - change[0].getRemoved() + change[0].getInserted())
+                throw new IllegalStateException("Relexing counted its replaced tokens wrong, " + where);
+            previous = change[0].getTokens();
+        }
+    }
+
+    // Every token with what it covers and where, names spelled out so different tables compare
+    private static String dump(TokenBuffer tokens) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            sb.append(tokens.type(i)).append(' ').append(tokens.start(i)).append('-').append(tokens.end(i)).append(' ');
+            sb.append(tokens.value(i)).append(' ').append(tokens.line(i)).append(':').append(tokens.col(i)).append('\n');
+        }
+        return sb.toString();
+    }
+
+}
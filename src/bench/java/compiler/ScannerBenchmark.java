@@ -0,0 +1,56 @@
+package compiler;
+
+// Times lexing a generated source that's mostly indentation, line comments and long strings,
+// once with the plain byte loop and once with the Vector API scanner
+public class ScannerBenchmark {
+
+    private static final int FUNCTIONS = 20000;
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    private static SourceFile generate() {
+        StringBuilder sb = new StringBuilder();
+        String padding = " ".repeat(24);
+        String text = "lorem ipsum dolor sit amet ".repeat(6);
+        for (int i = 0; i < FUNCTIONS; i++) {
+            sb.append("fn f").append(i).append("() -> void {\n");
+            sb.append(padding).append("// ").append(text).append(i).append('\n');
+            sb.append(padding).append("str s = \"").append(text).append("\";\n");
+            sb.append(padding).append("out s;\n");
+            sb.append("}\n");
+        }
+        sb.append("fn main() -> int {\n    return 0;\n}\n");
+        return SourceFile.fromString(sb.toString());
+    }
+
+    private static long time(SourceFile source, ByteScanner scanner) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP + RUNS; i++) {
+            Lexer lexer = new Lexer(source, new Error(source, "bench.xy"), new Interner());
+            lexer.useScanner(scanner);
+            long start = System.nanoTime();
+            TokenBuffer tokens = lexer.tokenize();
+            long elapsed = System.nanoTime() - start;
+            if (tokens.size() == 0)
+                throw new IllegalStateException("Nothing was lexed");
+            if (i >= WARMUP)
+                best = Math.min(best, elapsed);
+        }
+        return best;
+    }
+
+    public static void main(String[] args) {
+        SourceFile source = generate();
+        ByteScanner vector = ByteScanner.best();
+        if (vector instanceof ScalarByteScanner)
+            System.out.println("jdk.incubator.vector isn't available, both runs use the scalar loop");
+
+        long scalar = time(source, new ScalarByteScanner());
+        long vectorised = time(source, vector);
+        System.out.println(String.format("Source: %d bytes, %d functions", source.length(), FUNCTIONS));
+        System.out.println(String.format("Scalar: %.2f ms", scalar / 1e6));
+        System.out.println(String.format("Vector: %.2f ms (%s)", vectorised / 1e6, vector.getClass().getSimpleName()));
+        System.out.println(String.format("Speedup: %.2fx", (double) scalar / vectorised));
+    }
+
+}
@@ -0,0 +1,315 @@
+package compiler;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeFunction;
+import compiler.nodes.NodeProgram;
+
+// On-disk cache of lexed and parsed programs, so recompiling an unchanged file skips the lexer and parser.
+// Entries are keyed by a hash of the source, the compiler build and the config settings. Reading an entry
+// marks it as recently used, and the least recently used ones go once the directory passes MAX_BYTES
+public class AstCache {
+
+    private static final int MAGIC = 0x58594153; // "XYAS"
+    private static final int FORMAT = 1;
+    private static final long MAX_BYTES = 256L << 20;
+    private static final String SUFFIX = ".ast";
+
+    private final Path directory;
+    private final String key;
+    private final SourceFile source;
+
+    private AstCache(Path directory, String key, SourceFile source) {
+        this.directory = directory;
+        this.key = key;
+        this.source = source;
+    }
+
+    // Tokens and tree from an earlier compile of the same source, and the warnings parsing it printed
+    public static class Entry {
+        private final TokenBuffer tokens;
+        private final NodeProgram program;
+        private final String warnings;
+
+        private Entry(TokenBuffer tokens, NodeProgram program, String warnings) {
+            this.tokens = tokens;
+            this.program = program;
+            this.warnings = warnings;
+        }
+
+        public TokenBuffer getTokens() {
+            return this.tokens;
+        }
+
+        public NodeProgram getProgram() {
+            return this.program;
+        }
+
+        public String getWarnings() {
+            return this.warnings;
+        }
+    }
+
+    // Cache for the source under $XDG_CACHE_HOME/xy/ast or ~/.cache/xy/ast, null if there's nowhere to keep it
+    public static AstCache open(SourceFile source, HashMap<String, String> configSettings) {
+        Path directory = location();
+        if (directory == null)
+            return null;
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+        StringBuilder header = new StringBuilder(version()).append('\n');
+        for (Map.Entry<String, String> setting: new TreeMap<>(configSettings).entrySet())
+            header.append(setting.getKey()).append('=').append(setting.getValue()).append('\n');
+        header.append('\0');
+        digest.update(header.toString().getBytes(StandardCharsets.UTF_8));
+        source.digest(digest);
+        return new AstCache(directory, hex(digest.digest()), source);
+    }
+
+    // Lower case hex of a digest, two digits a byte
+    static String hex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b: digest)
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+
+    private static Path location() {
+        String base = System.getenv("XDG_CACHE_HOME");
+        if (base != null && !base.isEmpty())
+            return Paths.get(base, "xy", "ast");
+        String home = System.getProperty("user.home");
+        if (home == null || home.isEmpty())
+            return null;
+        return Paths.get(home, ".cache", "xy", "ast");
+    }
+
+    // The jar's size and timestamp stand in for the version, which isn't bumped on every rebuild
+    private static String version() {
+        String version = Main.class.getPackage().getImplementationVersion();
+        try {
+            Path code = Paths.get(Main.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return version + ":" + Files.size(code) + ":" + Files.getLastModifiedTime(code).toMillis();
+        } catch (Exception e) {
+            return String.valueOf(version);
+        }
+    }
+
+    private Path file() {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    // Null on a miss. A damaged or unreadable entry counts as a miss too
+    public Entry load() {
+        Path file = file();
+        try {
+            Input in = new Input(Files.readAllBytes(file));
+            if (in.readInt() != MAGIC || in.readVarInt() != FORMAT)
+                return null;
+            Interner symbols = Interner.readFrom(in);
+            LineIndex lines = LineIndex.readFrom(in, source);
+            TokenBuffer tokens = TokenBuffer.readFrom(in, source, symbols, lines);
+            AstArena arena = AstArena.readFrom(in, tokens);
+            NodeProgram program = new NodeProgram(arena);
+            int functions = in.readCount();
+            for (int i = 0; i < functions; i++)
+                program.appendFunction(new NodeFunction(arena, in.readVarInt()));
+            String warnings = in.readString();
+            if (in.remaining() != 0)
+                return null;
+
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(tokens, program, warnings);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Saves a fresh parse, before the verifier has annotated it. Failing to write only costs the next compile a miss
+    public void store(TokenBuffer tokens, NodeProgram program, String warnings) {
+        Output out = new Output();
+        out.writeInt(MAGIC);
+        out.writeVarInt(FORMAT);
+        tokens.getSymbols().writeTo(out);
+        tokens.getLines().writeTo(out);
+        tokens.writeTo(out);
+        program.getArena().writeTo(out);
+        out.writeVarInt(program.getNodeFunctions().size());
+        for (NodeFunction function: program.getNodeFunctions())
+            out.writeVarInt(function.getNode());
+        out.writeString(warnings);
+
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, out.toByteArray());
+            Files.move(temp, file(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evict();
+        } catch (IOException e) {
+            try {
+                if (temp != null)
+                    Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Nothing more to do
+            }
+        }
+    }
+
+    // Deletes the least recently used entries until the rest fit in MAX_BYTES
+    private void evict() throws IOException {
+        ArrayList<Path> files = new ArrayList<>();
+        ArrayList<BasicFileAttributes> attributes = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path entry: entries) {
+                files.add(entry);
+                attributes.add(Files.readAttributes(entry, BasicFileAttributes.class));
+            }
+        }
+
+        Integer[] order = new Integer[files.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> attributes.get(b).lastModifiedTime().compareTo(attributes.get(a).lastModifiedTime()));
+
+        long total = 0;
+        for (int i: order) {
+            total += attributes.get(i).size();
+            if (total > MAX_BYTES)
+                Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    // Growable byte buffer. Ints are zigzag varints, so small values of either sign take a single byte
+    public static final class Output {
+        private byte[] bytes = new byte[1 << 16];
+        private int size = 0;
+
+        private void reserve(int count) {
+            if (size + count > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + count));
+        }
+
+        public void writeInt(int value) {
+            reserve(4);
+            for (int shift = 24; shift >= 0; shift -= 8)
+                bytes[size++] = (byte) (value >>> shift);
+        }
+
+        public void writeVarInt(int value) {
+            reserve(5);
+            int v = (value << 1) ^ (value >> 31);
+            while ((v & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        public void writeBytes(byte[] value, int count) {
+            writeVarInt(count);
+            reserve(count);
+            System.arraycopy(value, 0, bytes, size, count);
+            size += count;
+        }
+
+        public void writeString(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeBytes(encoded, encoded.length);
+        }
+
+        // Sorted or nearly sorted columns shrink a lot as differences from the previous value
+        public void writeDeltas(int[] values, int count) {
+            int previous = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarInt(values[i] - previous);
+                previous = values[i];
+            }
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    public static final class Input {
+        private final byte[] bytes;
+        private int position = 0;
+
+        public Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        public int remaining() {
+            return bytes.length - position;
+        }
+
+        public int readInt() {
+            int value = 0;
+            for (int i = 0; i < 4; i++)
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            return value;
+        }
+
+        public int readVarInt() {
+            int v = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = bytes[position++];
+                v |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    break;
+            }
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        // Length of a column or array that follows, checked so a damaged entry can't ask for a huge allocation
+        public int readCount() {
+            int count = readVarInt();
+            if (count < 0 || count > remaining())
+                throw new IllegalStateException("Corrupt cache entry");
+            return count;
+        }
+
+        public byte[] readBytes() {
+            int count = readCount();
+            byte[] value = Arrays.copyOfRange(bytes, position, position + count);
+            position += count;
+            return value;
+        }
+
+        public String readString() {
+            return new String(readBytes(), StandardCharsets.UTF_8);
+        }
+
+        public int[] readDeltas(int count) {
+            int[] values = new int[count];
+            int previous = 0;
+            for (int i = 0; i < count; i++) {
+                previous += readVarInt();
+                values[i] = previous;
+            }
+            return values;
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package compiler;
+
+// Bulk searches over the source bytes for the lexer's tight loops. Every search also stops at the
+// first non-ASCII byte, so the lexer can step over multi-byte characters exactly as it would one at a time
+public interface ByteScanner {
+
+    // Index of the first byte in [from, to) equal to stop or above 0x7F, or to if there's none
+    public int find(SourceFile source, int from, int to, int stop);
+
+    // Index of the first byte in [from, to) that isn't a space or a tab, or to if there's none
+    public int skipBlanks(SourceFile source, int from, int to);
+
+    // Uses the Vector API scanner when jdk.incubator.vector has been added to the module graph,
+    // e.g. with 'java --add-modules jdk.incubator.vector', otherwise the plain loop
+    public static ByteScanner best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (ByteScanner) Class.forName("compiler.VectorByteScanner").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return new ScalarByteScanner();
+            }
+        }
+        return new ScalarByteScanner();
+    }
+
+}
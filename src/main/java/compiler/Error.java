@@ -1,188 +1,422 @@
 package compiler;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+
 public class Error
 {
 
-    private String fileContents;
+    private SourceFile source;
     private String fileName;
-    private Integer numLines;
+    private LineIndex lines = null;
+    private int printableLines;
 
     private static final String ANSI_RED = "\u001B[31m";
     private static final String ANSI_RESET = "\u001B[0m";
     private static final String ANSI_BLUE = "\u001b[34m";
     private static final String ANSI_YELLOW = "\u001B[33m";
 
-    public Error(String fileContents, String fileName) {
-        this.fileContents = fileContents;
+    // Set while a thread's output is being held back, see capture
+    private static final ThreadLocal<Captured> CAPTURE = new ThreadLocal<>();
+    // Set while a thread's diagnostics are collected instead of stopping at the first error, see collect
+    private static final ThreadLocal<Diagnostics> DIAGNOSTICS = new ThreadLocal<>();
+
+    public Error(SourceFile source, String fileName) {
+        this.source = source;
         this.fileName = fileName;
-        this.numLines = fileContents.split("\n").length;
     }
     
     public static void handleError(String type, String error, Integer exit_code) {
-        System.err.println(ANSI_RED + type.toUpperCase() + " ERROR: " + ANSI_RESET + error);
-        System.exit(exit_code);
+        print(ANSI_RED + type.toUpperCase() + " ERROR: " + ANSI_RESET + error);
+        exit(exit_code);
     }
 
     public static void handleError(String type, String error) {
-        System.err.println(ANSI_RED + type.toUpperCase() + " ERROR: " + ANSI_RESET + error);
-        System.exit(1);
+        print(ANSI_RED + type.toUpperCase() + " ERROR: " + ANSI_RESET + error);
+        exit(1);
     }
 
     public static void handleError(String error) {
-        System.err.println(ANSI_RED + " ERROR: " + ANSI_RESET + error);
-        System.exit(1);
+        print(ANSI_RED + " ERROR: " + ANSI_RESET + error);
+        exit(1);
     }
 
     public static void minorError(String type, String error) {
-        System.err.println(ANSI_BLUE + type.toUpperCase() + " ERROR: " + ANSI_RESET + error);
+        print(ANSI_BLUE + type.toUpperCase() + " ERROR: " + ANSI_RESET + error);
+        settle();
     }
 
     public static void minorError(String error) {
-        System.err.println(ANSI_BLUE + " ERROR: " + ANSI_RESET + error);
-        System.exit(1);
+        print(ANSI_BLUE + " ERROR: " + ANSI_RESET + error);
+        exit(1);
+    }
+
+    // Everything some work printed and how it ended. Captured output is held back so it can be replayed
+    // later on the main thread, recorded output is printed as usual and only copied
+    public static final class Captured {
+        private final boolean holding;
+        private final StringBuilder output = new StringBuilder();
+        private Integer exitCode = null;
+        private RuntimeException failure = null;
+
+        private Captured(boolean holding) {
+            this.holding = holding;
+        }
+
+        // Prints what was held back, then exits or throws the way the work did
+        public void replay() {
+            emit(output.toString());
+            if (exitCode != null)
+                exit(exitCode);
+            if (failure != null)
+                throw failure;
+        }
+
+        // Nothing was printed and the work ran to the end
+        public boolean isQuiet() {
+            return output.length() == 0 && exitCode == null && failure == null;
+        }
+
+        // The work stopped at an error rather than running to the end
+        public boolean failed() {
+            return exitCode != null || failure != null;
+        }
+
+        public String getOutput() {
+            return output.toString();
+        }
+
+        // Ends a recording, returning what was printed during it
+        public String stop() {
+            CAPTURE.remove();
+            return output.toString();
+        }
+    }
+
+    // Thrown in place of exiting while output is captured
+    private static class CapturedExit extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        CapturedExit() { super(null, null, false, false); }
+    }
+
+    // Runs work with its errors and warnings held back instead of printed, stopping at the first one that would exit.
+    // Captures can nest, replaying an inner one's output inside an outer one holds it back again
+    public static Captured capture(Runnable work) {
+        Captured outer = CAPTURE.get();
+        Captured captured = new Captured(true);
+        CAPTURE.set(captured);
+        try {
+            work.run();
+        } catch (CapturedExit e) {
+            // Exit code already recorded
+        } catch (RuntimeException e) {
+            captured.failure = e;
+        } finally {
+            if (outer == null)
+                CAPTURE.remove();
+            else
+                CAPTURE.set(outer);
+        }
+        return captured;
+    }
+
+    // Keeps a copy of everything printed on this thread until the recording is stopped
+    public static Captured record() {
+        Captured recording = new Captured(false);
+        CAPTURE.set(recording);
+        return recording;
+    }
+
+    // Thrown in place of exiting while diagnostics are collected, once the error has been kept. Whoever
+    // catches it carries on from the next point it can trust
+    public static final class Reported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private Reported() { super(null, null, false, false); }
+    }
+
+    // One error or warning, everything it printed and where in the source it's about
+    private static final class Diagnostic {
+        private final String text; private final int line; private final int col; private final boolean fatal;
+
+        Diagnostic(String text, int line, int col, boolean fatal) {
+            this.text = text; this.line = line; this.col = col; this.fatal = fatal;
+        }
+    }
+
+    // Errors and warnings held back so they can all be printed together, in source order
+    public static final class Diagnostics {
+        private final ArrayList<Diagnostic> found = new ArrayList<>();
+        private final StringBuilder pending = new StringBuilder();
+        private int line = -1;
+        private int col = -1;
+        private int cursorLine = 0; // Where whatever is being checked starts, for diagnostics that don't say
+        private int cursorCol = 0;
+        private int errors = 0;
+
+        private Diagnostics() {}
+
+        private void close(boolean fatal) {
+            // Once sorted, a message without a position would lose what it was next to, so it gets the cursor's
+            if (line == -1) {
+                line = cursorLine;
+                col = cursorCol;
+                if (line > 0)
+                    pending.append(String.format("    line: %d, col: %d", line, col)).append(System.lineSeparator());
+            }
+            found.add(new Diagnostic(pending.toString(), line, col, fatal));
+            pending.setLength(0);
+            line = -1;
+            col = -1;
+            if (fatal)
+                errors++;
+        }
+
+        public boolean hasErrors() {
+            return errors > 0;
+        }
+
+        // Stops collecting and prints everything found, sorted by position. Exits if any of it was an error
+        public void report() {
+            DIAGNOSTICS.remove();
+            if (pending.length() > 0)
+                close(false);
+            // The sort is stable, so diagnostics at the same position stay in the order they were found
+            found.sort(Comparator.comparingInt((Diagnostic d) -> d.line).thenComparingInt(d -> d.col));
+            for (Diagnostic diagnostic: found)
+                emit(diagnostic.text);
+            if (errors == 0)
+                return;
+            print(String.format("%d error%s", errors, (errors == 1) ? "" : "s"));
+            System.exit(1);
+        }
+    }
+
+    // Collects this thread's errors and warnings until they're reported, instead of printing them as they
+    // come and exiting at the first error. Every error throws Reported for the caller to recover from
+    public static Diagnostics collect() {
+        Diagnostics diagnostics = new Diagnostics();
+        DIAGNOSTICS.set(diagnostics);
+        return diagnostics;
+    }
+
+    public static boolean collecting() {
+        return DIAGNOSTICS.get() != null;
+    }
+
+    // Position of what's being checked now, given to the diagnostics collected that don't have their own
+    public static void locate(int line, int col) {
+        Diagnostics diagnostics = DIAGNOSTICS.get();
+        if (diagnostics != null) {
+            diagnostics.cursorLine = line;
+            diagnostics.cursorCol = col;
+        }
+    }
+
+    // Prints output recorded by an earlier compile
+    public static void replay(String output) {
+        emit(output);
+    }
+
+    private static void print(String message) {
+        emit(message + System.lineSeparator());
+    }
+
+    private static void emit(String text) {
+        Diagnostics diagnostics = DIAGNOSTICS.get();
+        if (diagnostics != null) {
+            diagnostics.pending.append(text);
+            return;
+        }
+        Captured captured = CAPTURE.get();
+        if (captured != null)
+            captured.output.append(text);
+        if (captured == null || !captured.holding)
+            System.err.print(text);
+    }
+
+    private static void exit(int code) {
+        Diagnostics diagnostics = DIAGNOSTICS.get();
+        if (diagnostics != null) {
+            diagnostics.close(true);
+            throw new Reported();
+        }
+        Captured captured = CAPTURE.get();
+        if (captured == null || !captured.holding)
+            System.exit(code);
+        captured.exitCode = code;
+        throw new CapturedExit();
+    }
+
+    // Ends a warning, which doesn't exit. Only matters while diagnostics are collected
+    private static void settle() {
+        Diagnostics diagnostics = DIAGNOSTICS.get();
+        if (diagnostics != null)
+            diagnostics.close(false);
     }
 
     public void logLines(int line, int col) {
-        System.err.println(ANSI_YELLOW + this.fileName + ":" + line + ":" + col + ANSI_RESET + ":");
+        Diagnostics diagnostics = DIAGNOSTICS.get();
+        if (diagnostics != null && diagnostics.line == -1) {
+            diagnostics.line = line;
+            diagnostics.col = col;
+        }
+        indexLines();
+        print(ANSI_YELLOW + this.fileName + ":" + line + ":" + col + ANSI_RESET + ":");
         for (Integer i = line - 2; i <= line + 2; i++) {
-            if (i >= 1 && i <= this.numLines) {
-                System.err.println(String.format("%5s | " + this.fileContents.split("\n")[i - 1], i));
+            if (i >= 1 && i <= this.printableLines) {
+                print(String.format("%5s | ", i) + this.source.slice(lines.start(i), lines.end(i)));
             } 
         } 
-        System.err.println("");
+        print("");
+    }
+
+    // Physical lines, since a lexer line number skips newlines inside block comments. Trailing
+    // empty lines aren't printable, the same lines splitting the source on newlines would keep
+    private synchronized void indexLines() {
+        if (this.lines != null)
+            return;
+        this.lines = LineIndex.physical(this.source);
+        int count = lines.count();
+        while (count > 1 && lines.start(count) == lines.end(count))
+            count--;
+        if (count == 1 && lines.count() > 1 && lines.end(1) == 0)
+            count = 0;
+        this.printableLines = count;
     }
 
     // Remove above
     public void invalidIdentName(String name, int line, int col) {
-        System.err.println(ANSI_RED + "error: invalid identifier name" + ANSI_RESET);
-        System.err.println(String.format("The name '%s' is a reserved keyword in XY. Please choose another identifier", name));
+        print(ANSI_RED + "error: invalid identifier name" + ANSI_RESET);
+        print(String.format("The name '%s' is a reserved keyword in XY. Please choose another identifier", name));
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     } 
 
     public void unknownPunctuation(String name, int line, int col) {
-        System.err.println(ANSI_RED + "error: unknown punctuation" + ANSI_RESET);
-        System.err.println(String.format("The punctuation '%s' is not recognized by the XY compiler. Please refer to the formal docs", name));
+        print(ANSI_RED + "error: unknown punctuation" + ANSI_RESET);
+        print(String.format("The punctuation '%s' is not recognized by the XY compiler. Please refer to the formal docs", name));
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void unknownOperator(TokenType operator, int line, int col) {
-        System.err.println(ANSI_RED + "error: unknown operator" + ANSI_RESET);
-        System.err.println(String.format("The operator '%s' is not an appropriate operator for an expression. Please refer to the formal docs", operator));
+        print(ANSI_RED + "error: unknown operator" + ANSI_RESET);
+        print(String.format("The operator '%s' is not an appropriate operator for an expression. Please refer to the formal docs", operator));
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void funcCallInForLoopInit(int line, int col) {
-        System.err.println(ANSI_RED + "error: no func-call in for loop initialization" + ANSI_RESET);
+        print(ANSI_RED + "error: no func-call in for loop initialization" + ANSI_RESET);
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void arrayAccessInForLoopInit(int line, int col) {
-        System.err.println(ANSI_RED + "error: no array-access in for loop initialization" + ANSI_RESET);
+        print(ANSI_RED + "error: no array-access in for loop initialization" + ANSI_RESET);
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void forLoopInit(int line, int col)  {
-        System.err.println(ANSI_RED + "error: for loops' initializer can only be a variable assignment/declaration" + ANSI_RESET);
+        print(ANSI_RED + "error: for loops' initializer can only be a variable assignment/declaration" + ANSI_RESET);
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void receivedWrongToken(TokenType expected, TokenType received, int line, int col) {
-        System.err.println(ANSI_RED + "error: received incorrect token in parser" + ANSI_RESET);
-        System.err.println(String.format("The XY parser expected to receive a token '%s', but instead received '%s'", expected, received));
+        print(ANSI_RED + "error: received incorrect token in parser" + ANSI_RESET);
+        print(String.format("The XY parser expected to receive a token '%s', but instead received '%s'", expected, received));
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void scanArray(int line, int col) {
-        System.err.println(ANSI_RED + "error: can't scan in an array" + ANSI_RESET);
+        print(ANSI_RED + "error: can't scan in an array" + ANSI_RESET);
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void NoTermParse(int line, int col) {
-        System.err.println(ANSI_RED + "error: can't parse term in func call" + ANSI_RESET);
+        print(ANSI_RED + "error: can't parse term in func call" + ANSI_RESET);
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void unexpectedTokenParameters(TokenType received, int line, int col) {
-        System.err.println(ANSI_RED + "error: unexpected token when parsing parameters" + ANSI_RESET);
-        System.err.println("Expected to receive COMMA or CLOSE_PAREN but received " + received);
+        print(ANSI_RED + "error: unexpected token when parsing parameters" + ANSI_RESET);
+        print("Expected to receive COMMA or CLOSE_PAREN but received " + received);
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void undeclaredVariable(String name, int line, int col) {
-        System.err.println(ANSI_RED + "error: accessing undeclared variable" + ANSI_RESET);
-        System.err.println(String.format("Variable '%s' is used but has not been declared", name));        
+        print(ANSI_RED + "error: accessing undeclared variable" + ANSI_RESET);
+        print(String.format("Variable '%s' is used but has not been declared", name));        
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void reassigningMutable(String name, int line, int col) {
-        System.err.println(ANSI_RED + "error: re-assigning a constant variable" + ANSI_RESET);
-        System.err.println(String.format("Variable '%s' is not declared as mutable so it's state may not be modified", name));        
+        print(ANSI_RED + "error: re-assigning a constant variable" + ANSI_RESET);
+        print(String.format("Variable '%s' is not declared as mutable so it's state may not be modified", name));        
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void undeclaredFunction(String name, int line, int col) {
-        System.err.println(ANSI_RED + "error: accessing undeclared function" + ANSI_RESET);
-        System.err.println(String.format("Function '%s' is called but has not been declared", name));        
+        print(ANSI_RED + "error: accessing undeclared function" + ANSI_RESET);
+        print(String.format("Function '%s' is called but has not been declared", name));        
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void wrongNumArgumentsFunction(String name, int expected, int received, int line, int col) {
-        System.err.println(ANSI_RED + "error: args parsed wrong to function" + ANSI_RESET);
-        System.err.println(String.format("Function '%s' requires %s arguments but received %s arguments", name, expected, received));        
+        print(ANSI_RED + "error: args parsed wrong to function" + ANSI_RESET);
+        print(String.format("Function '%s' requires %s arguments but received %s arguments", name, expected, received));        
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
     
     public void expectedMutable(int argNum, int line, int col) {
-        System.err.println(ANSI_RED + "error: function parameter needs to be mutable" + ANSI_RESET);
-        System.err.println(String.format("Expected arg %s to be mutable", argNum));        
+        print(ANSI_RED + "error: function parameter needs to be mutable" + ANSI_RESET);
+        print(String.format("Expected arg %s to be mutable", argNum));        
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void preExistingVariable(String name, int line, int col) {
-        System.err.println(ANSI_RED + "error: defined variable already exists" + ANSI_RESET);
-        System.err.println(String.format("Attempted declaration of variable '%s' that was previously defined in scope", name));        
+        print(ANSI_RED + "error: defined variable already exists" + ANSI_RESET);
+        print(String.format("Attempted declaration of variable '%s' that was previously defined in scope", name));        
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void itKeyword(int line, int col) {
-        System.err.println(ANSI_RED + "error: 'it' keyword may only be used in a loop scope" + ANSI_RESET);
+        print(ANSI_RED + "error: 'it' keyword may only be used in a loop scope" + ANSI_RESET);
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void incompatibleReturnTypes(String fName, String expected, String received, int line, int col) {
-        System.err.println(ANSI_RED + "error: incompatible return types" + ANSI_RESET);
-        System.err.println(String.format("In '%s' function, '%s' return type is expected, but '%s' return type was received", fName, expected, received));
+        print(ANSI_RED + "error: incompatible return types" + ANSI_RESET);
+        print(String.format("In '%s' function, '%s' return type is expected, but '%s' return type was received", fName, expected, received));
         logLines(line, col);
-        System.exit(1);
+        exit(1);
     }
 
     public void unnecessaryMutable(String name, int line, int col) {
-        System.err.println(ANSI_BLUE + "error: unnecessary mutable declaration" + ANSI_RESET);
-        System.err.println(String.format("Variable '%s' is declared as mutable but never reassigned", name));        
+        print(ANSI_BLUE + "error: unnecessary mutable declaration" + ANSI_RESET);
+        print(String.format("Variable '%s' is declared as mutable but never reassigned", name));        
         logLines(line, col);
+        settle();
     }
 
     public void unusedVariable(String name, int line, int col) {
-        System.err.println(ANSI_BLUE + "error: unused variable" + ANSI_RESET);
-        System.err.println(String.format("Variable '%s' is declared but never used", name));        
+        print(ANSI_BLUE + "error: unused variable" + ANSI_RESET);
+        print(String.format("Variable '%s' is declared but never used", name));        
         logLines(line, col);
+        settle();
     }
 
 
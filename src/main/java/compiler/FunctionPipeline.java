@@ -0,0 +1,52 @@
+package compiler;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+
+import compiler.nodes.NodeFunction;
+import compiler.nodes.NodeProgram;
+
+// Compiles a program a function at a time. A first pass lexes the whole source but keeps only the functions'
+// signatures, which are parsed and checked on their own. Then each function is lexed, parsed, checked and
+// written out as C in turn, and its tokens and tree are dropped before the next one, so peak memory follows
+// the largest function rather than the program. What's kept throughout is the signatures, the symbol table
+// and the line index. Errors come out in source order, a function at a time, rather than every parse error first
+public class FunctionPipeline {
+
+    private final SourceFile source;
+    private final Error handler;
+    private final Interner symbols;
+    private final HashMap<String, String> configSettings;
+
+    public FunctionPipeline(SourceFile source, Error handler, Interner symbols, HashMap<String, String> configSettings) {
+        this.source = source;
+        this.handler = handler;
+        this.symbols = symbols;
+        this.configSettings = configSettings;
+    }
+
+    // Writes the program's C to out as it goes. main comes last, where generateProgram puts it
+    public void compile(Writer out) throws IOException {
+        Outline outline = Outline.of(source, handler, symbols, configSettings);
+        Verifier verifier = new Verifier(outline.getSignatures(), symbols, configSettings, handler);
+        verifier.verifySignatures();
+        Generator generator = new Generator(outline.getSignatures());
+
+        int main = outline.mainFunction();
+        out.write(Generator.PRELUDE);
+        for (int i = 0; i < outline.size(); i++) {
+            if (i != main)
+                compileFunction(outline, i, verifier, generator, out);
+        }
+        compileFunction(outline, main, verifier, generator, out);
+    }
+
+    private void compileFunction(Outline outline, int i, Verifier verifier, Generator generator, Writer out) throws IOException {
+        NodeProgram program = new Parser(outline.lex(i), configSettings, handler).parseProgram();
+        for (NodeFunction function: program.getNodeFunctions()) {
+            verifier.verifyFunction(function);
+            out.write(generator.generateFunction(function));
+        }
+    }
+
+}
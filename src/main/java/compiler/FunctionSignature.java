@@ -0,0 +1,39 @@
+package compiler;
+
+// What calls to a function are checked against, worked out once from its header
+public class FunctionSignature {
+
+    private final Token identifier;
+    private final Token returnType;
+    private final XyType mappedReturnType;
+    private final XyType[] parameterTypes;
+    private final boolean[] mutable;
+
+    public FunctionSignature(Token identifier, Token returnType, XyType mappedReturnType, XyType[] parameterTypes, boolean[] mutable) {
+        this.identifier = identifier;
+        this.returnType = returnType;
+        this.mappedReturnType = mappedReturnType;
+        this.parameterTypes = parameterTypes;
+        this.mutable = mutable;
+    }
+
+    public Token getIdentifier() { return this.identifier; }
+    public Token getReturnType() { return this.returnType; }
+    public XyType getMappedReturnType() { return this.mappedReturnType; }
+    public int size() { return this.parameterTypes.length; }
+    public XyType getParameterType(int i) { return this.parameterTypes[i]; }
+    public boolean isMutable(int i) { return this.mutable[i]; }
+
+    // Everything a caller's check depends on, as one string. The name and parameter names aren't in it
+    @Override
+    public String toString() {
+        StringBuilder signature = new StringBuilder(mappedReturnType.toString()).append('(');
+        for (int i = 0; i < size(); i++) {
+            if (i > 0)
+                signature.append(", ");
+            signature.append(mutable[i] ? "mut " : "").append(parameterTypes[i]);
+        }
+        return signature.append(')').toString();
+    }
+
+}
@@ -5,20 +5,63 @@ import java.util.stream.Collectors;
 
 import compiler.nodes.NodeFunction;
 import compiler.nodes.NodeProgram;
+import compiler.nodes.NodeVisitor;
+import compiler.nodes.Visitable;
+import compiler.nodes.expression_nodes.BinaryExpression;
+import compiler.nodes.expression_nodes.NodeExpression;
+import compiler.nodes.expression_nodes.UnaryExpression;
+import compiler.nodes.expression_nodes.term_nodes.ArrayAccess;
+import compiler.nodes.expression_nodes.term_nodes.ArrayExpression;
+import compiler.nodes.expression_nodes.term_nodes.Assignable;
+import compiler.nodes.expression_nodes.term_nodes.CharExpression;
+import compiler.nodes.expression_nodes.term_nodes.FuncCallNode;
+import compiler.nodes.expression_nodes.term_nodes.IdentExpression;
+import compiler.nodes.expression_nodes.term_nodes.IntLitExpression;
+import compiler.nodes.expression_nodes.term_nodes.ItExpression;
+import compiler.nodes.expression_nodes.term_nodes.NegationExpression;
+import compiler.nodes.expression_nodes.term_nodes.NodeTerm;
+import compiler.nodes.expression_nodes.term_nodes.ParenExpression;
+import compiler.nodes.expression_nodes.term_nodes.StringExpression;
+import compiler.nodes.statement_nodes.NodeAssign;
+import compiler.nodes.statement_nodes.NodeLet;
+import compiler.nodes.statement_nodes.NodePrint;
+import compiler.nodes.statement_nodes.NodeReturn;
+import compiler.nodes.statement_nodes.NodeScan;
+import compiler.nodes.statement_nodes.NodeScope;
+import compiler.nodes.statement_nodes.NodeStatement;
+import compiler.nodes.statement_nodes.conditionals.NodeIf;
+import compiler.nodes.statement_nodes.conditionals.NodeIfPredicate;
+import compiler.nodes.statement_nodes.conditionals.NodeIfPredicateElif;
+import compiler.nodes.statement_nodes.conditionals.NodeIfPredicateElse;
+import compiler.nodes.statement_nodes.loops.NodeBreak;
+import compiler.nodes.statement_nodes.loops.NodeContinue;
+import compiler.nodes.statement_nodes.loops.NodeDo;
+import compiler.nodes.statement_nodes.loops.NodeFor;
+import compiler.nodes.statement_nodes.loops.NodeLoop;
+import compiler.nodes.statement_nodes.loops.NodeWhile;
 
-public class Generator {
+public class Generator implements NodeVisitor<Void> {
 
     private final NodeProgram program;
     private final ArrayList<String> assemblyBuffer = new ArrayList<>();
+
+    // Output still to produce, next item last: text, a node to expand or REMOVE_SEMICOLON.
+    // Visiting a node only queues its text and children, so nesting depth is limited by the heap
+    private static final Object REMOVE_SEMICOLON = new Object();
+    private final ArrayList<Object> work = new ArrayList<>();
+    private final ArrayList<Object> queued = new ArrayList<>(); // What the node being expanded asked for, in order
+    private boolean expanding = false;
     private NodeFunction currentFunction = null;
-    public void setCurrentFunction(NodeFunction function) { this.currentFunction = function; }
-    public NodeFunction getCurrentFunction() { return this.currentFunction; }
 
     public Generator(NodeProgram program) {
         this.program = program;
     } 
 
     public void removeSemicolon() {
+        if (expanding) {
+            queued.add(REMOVE_SEMICOLON);
+            return;
+        }
         if (assemblyBuffer.size() == 0)
             return;
         String lastBuffer = assemblyBuffer.get(assemblyBuffer.size() - 1);
@@ -28,23 +71,439 @@ public class Generator {
         assemblyBuffer.add(lastBuffer);
     }
  
-    public void appendContents(String contents) { assemblyBuffer.add(contents); }
+    public void appendContents(String contents) {
+        if (expanding)
+            queued.add(contents);
+        else
+            assemblyBuffer.add(contents);
+    }
+
+    // Generates a child in its place among the calling node's output
+    public void generate(Visitable node) {
+        if (expanding) {
+            queued.add(node);
+            return;
+        }
+        work.add(node);
+        while (!work.isEmpty()) {
+            Object item = work.remove(work.size() - 1);
+            if (item instanceof String) {
+                assemblyBuffer.add((String) item);
+            } else if (item == REMOVE_SEMICOLON) {
+                removeSemicolon();
+            } else {
+                expanding = true;
+                ((Visitable) item).accept(this);
+                expanding = false;
+                for (int i = queued.size() - 1; i >= 0; i--)
+                    work.add(queued.get(i));
+                queued.clear();
+            }
+        }
+    }
+
+    public static final String PRELUDE = "#include <stdio.h>\n\n";
 
     public String generateProgram() {
         NodeProgram program = this.program;
-        this.appendContents("#include <stdio.h>\n\n");
+        this.appendContents(PRELUDE);
         List<NodeFunction> nonMain = program.getNodeFunctions().stream().filter(f -> !f.getFunctionName().equals("main")).collect(Collectors.toList());
         
         // Generating non-main functions
         for (NodeFunction function: nonMain)
-            function.operator(this);
+            generate(function);
 
         // Generating the main function
         NodeFunction mainFunction = program.getNodeFunctions().stream().filter(f -> f.getFunctionName().equals("main")).collect(Collectors.toList()).get(0);
-        mainFunction.operator(this);
+        generate(mainFunction);
 
         return String.join("", assemblyBuffer);
     }
 
+    // C for one function, handed back instead of kept, so a program can be written out a function at a time
+    public String generateFunction(NodeFunction function) {
+        generate(function);
+        String contents = String.join("", assemblyBuffer);
+        assemblyBuffer.clear();
+        return contents;
+    }
+
+    public Void visitFunction(NodeFunction function) {
+        this.currentFunction = function;
+        String returnValue = XyType.of(function.getReturnType()).getC();
+        String funcDefinition = String.format("%s %s(%s)\n", returnValue, function.getFunctionName(), function.getParameters().toString());
+        appendContents(funcDefinition);
+        generate(function.getStatements());
+        return null;
+    }
+
+    public Void visitAssign(NodeAssign assign) {
+        Assignable identifier = assign.getIdentifier();
+        NodeExpression expression = assign.getExpression();
+        String variableName = identifier.convert();
+        if (expression instanceof UnaryExpression) {
+            appendContents(variableName);
+        } else {
+            appendContents(variableName + " = ");
+        }
+        generate(expression);
+        appendContents(";");
+        return null;
+    }
+
+    public Void visitLet(NodeLet let) {
+        appendContents(XyType.of(let.getType()).declare(let.getName()) + " = ");
+        generate(let.getExpression());
+        appendContents(";");
+        return null;
+    }
+
+    public Void visitPrint(NodePrint print) {
+        NodeTerm term = print.getTerm();
+        XyType type = term.getResolvedType();
+        if (term instanceof StringExpression) {
+            appendContents("    printf(" + term.toString() + ");\n");
+            return null;
+        }
+        // Arrays of strings and chars are checked for being empty first
+        XyType element = type.getElement();
+        if (element != null && element.getFormat() != null) {
+            printArray(term.getToken().getValue(), element.getFormat(), element != XyType.NUMERIC);
+            return null;
+        }
+        if (type.getFormat() != null)
+            appendContents("printf(\"" + type.getFormat() + "\\n\", ");
+        generate(term);
+        appendContents(");");
+        return null;
+    }
+
+    // Prints an array's elements between brackets. String and char arrays are checked for being empty first
+    private void printArray(String name, String format, boolean guarded) {
+        String top = "sizeof(" + name + ")";
+        String size = "sizeof(" + name + ") / sizeof(" + name +  "[0])";
+        String condition = "__lc__ <" + size;
+        appendContents("printf(\"[\");\n");
+        if (guarded)
+            appendContents("if (" + top + "!= 0 ) {");
+        appendContents("for (int __lc__ = 0; " + condition + "; __lc__++) {\n");
+        appendContents("printf(\"" + format + "\", " + name + "[__lc__]);\n");
+        appendContents("if (__lc__ + 1 !=" + size + ") printf(\", \");\n");
+        appendContents("}\n");
+        if (guarded)
+            appendContents("}\n");
+        appendContents("printf(\"]\\n\");\n");
+    }
+
+    public Void visitReturn(NodeReturn ret) {
+        Token returnToken = currentFunction.getReturnType();
+        appendContents("    return");
+        switch (returnToken.getType()) {
+            case DECLARE:
+                switch (returnToken.getValue()) {
+                    case "int":
+                    case "bool":
+                    case "str":
+                        appendContents(" ");
+                        generate(ret.getExpression());
+                }
+                break;
+            case VOID:
+                break;
+            default:
+                Error.handleError("GENERATOR", "Unrecognized return type" + returnToken.getType().toString());
+        }
+        appendContents(";\n");
+        return null;
+    }
+
+    public Void visitScan(NodeScan scan) {
+        Token identifier = scan.getIdentifier();
+        Token type = scan.getType();
+        String output = scan.getOutput();
+        // Need to add string support, generic variable at the moment for the end
+        switch (type.getType()) {
+            case DECLARE:
+                switch (type.getValue()) {
+                    case "int":
+                        appendContents("    int " + identifier.getValue() + ";\n");
+                        appendContents("    printf(" + output + ");\n");
+                        appendContents("    scanf(\"%d\", " + "&" + identifier.getValue() + ");\n");
+                        break;
+                    case "char":
+                        // TODO
+                        appendContents("    char " + identifier.getValue() + ";\n");
+                        appendContents("    printf(" + output + ");\n");
+                        appendContents("    scanf(\"%c\", " + "&" + identifier.getValue() + ");\n");
+                        break;
+                    case "str": // 256 bytes max
+                        String name = identifier.getValue();
+                        appendContents("    char " + name + "[256 + 1];\n");
+                        appendContents("    printf(" + output + ");\n");
+                        appendContents("    fgets(" + name + ", sizeof(" + name + "), stdin);\n");
+                    }
+                break;
+            default:
+                Error.handleError("GENERATOR", "Attempting to scan in an unrecognized identifier");
+        }
+        return null;
+    }
+
+    public Void visitScope(NodeScope scope) {
+        appendContents("{");
+        for (NodeStatement statement: scope.getStatements()) {
+            appendContents("\n    ");
+            generate(statement);
+        }
+        appendContents("}");
+        return null;
+    }
+
+    public Void visitIf(NodeIf ifStatement) {
+        NodeIfPredicate predicate = ifStatement.getPredicate();
+        appendContents("    if (");
+        generate(ifStatement.getExpression());
+        appendContents(")\n");
+        generate(ifStatement.getScope());
+        if (predicate != null)
+            generate(predicate);
+        return null;
+    }
+
+    public Void visitElif(NodeIfPredicateElif elif) {
+        NodeIfPredicate predicate = elif.getPredicate();
+        appendContents("    else if (");
+        generate(elif.getExpression());
+        appendContents(") \n");
+        generate(elif.getScope());
+        if (predicate != null)
+            generate(predicate);
+        return null;
+    }
+
+    public Void visitElse(NodeIfPredicateElse elseStatement) {
+        appendContents("    else\n");
+        generate(elseStatement.getScope());
+        return null;
+    }
+
+    public Void visitBreak(NodeBreak breakStatement) {
+        appendContents("    break;\n");
+        return null;
+    }
+
+    public Void visitContinue(NodeContinue continueStatement) {
+        appendContents("    continue;\n");
+        return null;
+    }
+
+    public Void visitDo(NodeDo doStatement) {
+        appendContents("    do\n");
+        generate(doStatement.getScope());
+        appendContents("    while (");
+        generate(doStatement.getExpression());
+        appendContents(");\n");
+        return null;
+    }
+
+    public Void visitFor(NodeFor forStatement) {
+        NodeStatement initializer = forStatement.getInitializer();
+        NodeExpression condition = forStatement.getCondition();
+        NodeStatement iterator = forStatement.getIterator();
+        appendContents("for (");
+        if (initializer != null)
+            generate(initializer);
+        removeSemicolon();
+        appendContents("; ");
+        if (condition != null)
+            generate(condition);
+        removeSemicolon();
+        appendContents("; ");
+        if (iterator != null)
+            generate(iterator);
+        removeSemicolon();
+        appendContents(")\n");
+        generate(forStatement.getScope());
+        return null;
+    }
+
+    public Void visitLoop(NodeLoop loop) {
+        String count = loop.getCount();
+        String keyword = "__lc__" + loop.getDepth() + "_";
+        if (count == null)
+            appendContents("for (int " + keyword + " = 0;;" + keyword + "++)\n");
+        else
+            appendContents("for (int " + keyword + " = 0; " + keyword + " < " + count + "; " + keyword + "++)\n");
+        generate(loop.getScope());
+        return null;
+    }
+
+    public Void visitWhile(NodeWhile whileStatement) {
+        appendContents("while (");
+        generate(whileStatement.getExpression());
+        appendContents(")\n");
+        generate(whileStatement.getScope());
+        return null;
+    }
+
+    public Void visitBinary(BinaryExpression binary) {
+        generate(binary.getLHS());
+        switch (binary.getOperator()) {
+            case PLUS:
+                appendContents(" + ");
+                break;
+            case DASH:
+                appendContents(" - ");
+                break;
+            case STAR:
+                appendContents(" * ");
+                break;
+            case F_SLASH:
+                appendContents(" / ");
+                break;
+            case AND_LOGIC:
+                appendContents(" && ");
+                break;
+            case OR_LOGIC:
+                appendContents(" || ");
+                break;
+            case LESS_THAN:
+                appendContents(" < ");
+                break;
+            case LESS_EQ:
+                appendContents(" <= ");
+                break;
+            case GREATER_THAN:
+                appendContents(" > ");
+                break;
+            case GREATER_EQ:
+                appendContents(" >= ");
+                break;
+            case EQUAL:
+                appendContents(" == ");
+                break;
+            case NOT_EQUAL:
+                appendContents(" != ");
+                break;
+            case PERCENT:
+                appendContents(" % ");
+                break;
+            case BITWISE_AND:
+                appendContents(" & ");
+                break;
+            case BITWISE_OR:
+                appendContents(" | ");
+                break;
+            case BITWISE_XOR:
+                appendContents(" ^ ");
+                break;
+            case BITWISE_LEFT_SHIFT:
+                appendContents(" << ");
+                break;
+            case BITWISE_RIGHT_SHIFT:
+                appendContents(" >> ");
+                break;
+            default:
+                Error.handleError("GENERATOR", "Unknown operator: " + binary.toString());
+        }
+        generate(binary.getRHS());
+        return null;
+    }
+
+    public Void visitUnary(UnaryExpression unary) {
+        NodeExpression expression = unary.getExpression();
+        switch (unary.getOperator()) {
+            case PLUS_EQUAL:
+                appendContents(" += ");
+                generate(expression); break;
+            case DASH_EQUAL:
+                appendContents(" -= ");
+                generate(expression); break;
+            case STAR_EQUAL:
+                appendContents(" *= ");
+                generate(expression); break;
+            case F_SLASH_EQUAL:
+                appendContents(" /= ");
+                generate(expression); break;
+            case INCREMENT:
+                appendContents("++"); break;
+            case DECREMENT:
+                appendContents("--"); break;
+            default: break;
+        }
+        return null;
+    }
+
+    public Void visitArrayAccess(ArrayAccess access) {
+        appendContents(access.getValue());
+        appendContents("[");
+        generate(access.getIndex());
+        appendContents("]");
+        return null;
+    }
+
+    public Void visitArray(ArrayExpression array) {
+        ArrayList<NodeExpression> expressions = array.getExpressions();
+        appendContents("{");
+        for (int i = 0; i < expressions.size(); i++) {
+            generate(expressions.get(i));
+            if (i != expressions.size() - 1)
+                appendContents(", ");
+        }
+        appendContents("}");
+        return null;
+    }
+
+    public Void visitChar(CharExpression character) {
+        appendContents(character.getValue());
+        return null;
+    }
+
+    public Void visitFuncCall(FuncCallNode call) {
+        ArrayList<NodeTerm> parameters = call.getParameters();
+        appendContents(call.getFunctionName() + "(");
+        for (int i = 0; i < parameters.size(); i++) {
+            generate(parameters.get(i));
+            if (i != parameters.size() - 1) appendContents(", ");
+        }
+        appendContents(")");
+
+        if (call.isIsolated())
+            appendContents(";\n");
+        return null;
+    }
+
+    public Void visitIdent(IdentExpression ident) {
+        appendContents(ident.getValue());
+        return null;
+    }
+
+    public Void visitIntLit(IntLitExpression intLit) {
+        appendContents(intLit.getValue());
+        return null;
+    }
+
+    public Void visitIt(ItExpression it) {
+        appendContents("__lc__" + it.getDepth() + "_");
+        return null;
+    }
+
+    public Void visitNegation(NegationExpression negation) {
+        appendContents("!");
+        generate(negation.getExpression());
+        return null;
+    }
+
+    public Void visitParen(ParenExpression paren) {
+        appendContents("(");
+        generate(paren.getExpression());
+        appendContents(")");
+        return null;
+    }
+
+    public Void visitString(StringExpression string) {
+        appendContents(string.getValue());
+        return null;
+    }
 
 }
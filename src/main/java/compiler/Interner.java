@@ -0,0 +1,158 @@
+package compiler;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Per-compilation identifier table, each distinct name gets a dense id in order of first appearance
+public class Interner {
+
+    private int[] table = new int[64]; // id + 1 per slot, 0 when empty
+    private byte[][] spellings = new byte[32][];
+    private int[] hashes = new int[32];
+    private String[] names = new String[32];
+    private int size = 0;
+
+    public Interner() {}
+
+    public int size() {
+        return this.size;
+    }
+
+    public String name(int id) {
+        return this.names[id];
+    }
+
+    // Interns the identifier spanning [start, end) of the source without building a String for repeats
+    public int intern(SourceFile source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + source.byteAt(i);
+
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0)
+                return insert(slot, hash, source, start, end);
+            int id = entry - 1;
+            if (hashes[id] == hash && matches(spellings[id], source, start, end))
+                return id;
+        }
+    }
+
+    // Id of an already interned name, or -1 if the name never appeared in the source
+    public int lookup(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = 0;
+        for (byte b: bytes)
+            hash = 31 * hash + (b & 0xFF);
+
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0)
+                return -1;
+            int id = entry - 1;
+            if (hashes[id] == hash && Arrays.equals(spellings[id], bytes))
+                return id;
+        }
+    }
+
+    // Copies an id from another table, used when stitching together chunks lexed with their own tables
+    public int intern(Interner from, int id) {
+        return intern(from.spellings[id], from.hashes[id], from.names[id]);
+    }
+
+    private int intern(byte[] spelling, int hash, String name) {
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0)
+                return insert(slot, hash, spelling, name);
+            int existing = entry - 1;
+            if (hashes[existing] == hash && Arrays.equals(spellings[existing], spelling))
+                return existing;
+        }
+    }
+
+    // Same names under the same ids, for a later version of the source to add to while this one stays as it is
+    public Interner copy() {
+        Interner copy = new Interner();
+        copy.table = table.clone();
+        copy.spellings = spellings.clone();
+        copy.hashes = hashes.clone();
+        copy.names = names.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    // Spellings in id order, which is all it takes to rebuild the table
+    public void writeTo(AstCache.Output out) {
+        out.writeVarInt(size);
+        for (int id = 0; id < size; id++)
+            out.writeBytes(spellings[id], spellings[id].length);
+    }
+
+    public static Interner readFrom(AstCache.Input in) {
+        Interner symbols = new Interner();
+        int count = in.readCount();
+        for (int id = 0; id < count; id++) {
+            byte[] spelling = in.readBytes();
+            int hash = 0;
+            for (byte b: spelling)
+                hash = 31 * hash + (b & 0xFF);
+            symbols.intern(spelling, hash, SourceFile.decode(spelling));
+        }
+        return symbols;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(byte[] spelling, SourceFile source, int start, int end) {
+        if (spelling.length != end - start)
+            return false;
+        for (int i = 0; i < spelling.length; i++) {
+            if ((spelling[i] & 0xFF) != source.byteAt(start + i))
+                return false;
+        }
+        return true;
+    }
+
+    private int insert(int slot, int hash, SourceFile source, int start, int end) {
+        byte[] spelling = new byte[end - start];
+        for (int i = 0; i < spelling.length; i++)
+            spelling[i] = (byte) source.byteAt(start + i);
+        return insert(slot, hash, spelling, source.slice(start, end));
+    }
+
+    private int insert(int slot, int hash, byte[] spelling, String name) {
+        int id = this.size++;
+        if (id == names.length) {
+            spellings = Arrays.copyOf(spellings, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+            names = Arrays.copyOf(names, id * 2);
+        }
+        spellings[id] = spelling;
+        hashes[id] = hash;
+        names[id] = name;
+        table[slot] = id + 1;
+
+        // Keep the table at most half full
+        if (this.size * 2 > table.length)
+            rehash();
+        return id;
+    }
+
+    private void rehash() {
+        int[] bigger = new int[table.length * 2];
+        int mask = bigger.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (bigger[slot] != 0)
+                slot = (slot + 1) & mask;
+            bigger[slot] = id + 1;
+        }
+        this.table = bigger;
+    }
+
+}
@@ -0,0 +1,84 @@
+package compiler;
+
+// Perfect hash over the reserved words, keyed on the first, second and last character plus the length
+final class Keywords {
+
+    private static final int SIZE = 64;
+    private static final int MIN_LENGTH = 2;
+    private static final int MAX_LENGTH = 8;
+
+    private static final byte[][] TEXT = new byte[SIZE][];
+    private static final TokenType[] TYPE = new TokenType[SIZE];
+    private static final String[] VALUE = new String[SIZE];
+
+    static {
+        add("return", TokenType.RETURN, null);
+        add("fn", TokenType.FN, null);
+        add("arr", TokenType.ARR, null);
+        add("int", TokenType.DECLARE, "int");
+        add("s32", TokenType.DECLARE, "int");
+        add("bool", TokenType.DECLARE, "bool");
+        add("str", TokenType.DECLARE, "str");
+        add("char", TokenType.DECLARE, "char");
+        add("if", TokenType.IF, null);
+        add("else", TokenType.ELSE, null);
+        add("while", TokenType.WHILE, null);
+        add("mut", TokenType.MUT, null);
+        add("out", TokenType.OUT, null);
+        add("in", TokenType.IN, null);
+        add("do", TokenType.DO, null);
+        add("continue", TokenType.CONTINUE, null);
+        add("break", TokenType.BREAK, null);
+        add("loop", TokenType.LOOP, null);
+        add("for", TokenType.FOR, null);
+        add("void", TokenType.VOID, null);
+        add("true", TokenType.INT_LIT, "1");
+        add("false", TokenType.INT_LIT, "0");
+    }
+
+    private Keywords() {}
+
+    private static int slot(int first, int second, int last, int length) {
+        return (first + (second << 2) + last * 14 + length) & (SIZE - 1);
+    }
+
+    // New keywords must keep the hash collision free, otherwise this fails at class load
+    private static void add(String word, TokenType type, String value) {
+        int length = word.length();
+        int s = slot(word.charAt(0), word.charAt(1), word.charAt(length - 1), length);
+        if (TEXT[s] != null)
+            throw new IllegalStateException("Keyword '" + word + "' collides in the keyword table");
+        byte[] text = new byte[length];
+        for (int i = 0; i < length; i++)
+            text[i] = (byte) word.charAt(i);
+        TEXT[s] = text;
+        TYPE[s] = type;
+        VALUE[s] = value;
+    }
+
+    // Returns the table slot of the keyword spanning [start, end), or -1 for a plain identifier
+    static int lookup(SourceFile source, int start, int end) {
+        int length = end - start;
+        if (length < MIN_LENGTH || length > MAX_LENGTH)
+            return -1;
+        int s = slot(source.byteAt(start), source.byteAt(start + 1), source.byteAt(end - 1), length);
+        byte[] text = TEXT[s];
+        if (text == null || text.length != length)
+            return -1;
+        for (int i = 0; i < length; i++) {
+            if (source.byteAt(start + i) != text[i])
+                return -1;
+        }
+        return s;
+    }
+
+    static TokenType type(int slot) {
+        return TYPE[slot];
+    }
+
+    // Fixed value carried by the token (e.g. "int" for s32), null for plain keywords
+    static String value(int slot) {
+        return VALUE[slot];
+    }
+
+}
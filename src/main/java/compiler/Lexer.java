@@ -1,71 +1,389 @@
 package compiler;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
 
 public class Lexer {
-    
-    private final String contents;
+
+    private static final int EOF = -1;
+
+    // ASCII character classes, anything above 127 falls back to java.lang.Character
+    private static final byte IDENT_START = 1;
+    private static final byte IDENT_PART = 2;
+    private static final byte DIGIT = 4;
+    private static final byte SPACE = 8;
+    private static final byte[] CHAR_CLASS = new byte[128];
+
+    // Single character punctuation, and two character operators indexed by [first][second]
+    private static final TokenType[] PUNCTUATION = new TokenType[128];
+    private static final TokenType[][] OPERATOR_PAIRS = new TokenType[128][];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            if (Character.isAlphabetic(c) || c == '_') CHAR_CLASS[c] |= IDENT_START;
+            if (Character.isLetterOrDigit(c) || c == '_') CHAR_CLASS[c] |= IDENT_PART;
+            if (Character.isDigit(c)) CHAR_CLASS[c] |= DIGIT;
+            if (Character.isWhitespace(c)) CHAR_CLASS[c] |= SPACE;
+        }
+
+        PUNCTUATION[';'] = TokenType.SEMI;
+        PUNCTUATION['$'] = TokenType.DOLLAR;
+        PUNCTUATION['='] = TokenType.ASSIGN;
+        PUNCTUATION['+'] = TokenType.PLUS;
+        PUNCTUATION['*'] = TokenType.STAR;
+        PUNCTUATION['-'] = TokenType.DASH;
+        PUNCTUATION['/'] = TokenType.F_SLASH;
+        PUNCTUATION['('] = TokenType.OPEN_PAREN;
+        PUNCTUATION[')'] = TokenType.CLOSE_PAREN;
+        PUNCTUATION['{'] = TokenType.OPEN_CURLY;
+        PUNCTUATION['}'] = TokenType.CLOSE_CURLY;
+        PUNCTUATION['['] = TokenType.LEFT_SQUARE;
+        PUNCTUATION[']'] = TokenType.RIGHT_SQUARE;
+        PUNCTUATION['<'] = TokenType.LESS_THAN;
+        PUNCTUATION['>'] = TokenType.GREATER_THAN;
+        PUNCTUATION['!'] = TokenType.NEGATE;
+        PUNCTUATION[','] = TokenType.COMMA;
+        PUNCTUATION['%'] = TokenType.PERCENT;
+        PUNCTUATION['&'] = TokenType.BITWISE_AND;
+        PUNCTUATION['|'] = TokenType.BITWISE_OR;
+        PUNCTUATION['^'] = TokenType.BITWISE_XOR;
+
+        addPair(">=", TokenType.GREATER_EQ);
+        addPair("<=", TokenType.LESS_EQ);
+        addPair("==", TokenType.EQUAL);
+        addPair("!=", TokenType.NOT_EQUAL);
+        addPair("&&", TokenType.AND_LOGIC);
+        addPair("||", TokenType.OR_LOGIC);
+        addPair("++", TokenType.INCREMENT);
+        addPair("--", TokenType.DECREMENT);
+        addPair("+=", TokenType.PLUS_EQUAL);
+        addPair("-=", TokenType.DASH_EQUAL);
+        addPair("*=", TokenType.STAR_EQUAL);
+        addPair("/=", TokenType.F_SLASH_EQUAL);
+        addPair("->", TokenType.ARROW);
+        addPair("<<", TokenType.BITWISE_LEFT_SHIFT);
+        addPair(">>", TokenType.BITWISE_RIGHT_SHIFT);
+    }
+
+    // Sources smaller than this are always lexed on one thread
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int MIN_CHUNK = 1 << 16;
+
+    private static final ByteScanner BEST_SCANNER = ByteScanner.best();
+
+    // Furthest a token's scan can look past where it starts, before reaching its own end
+    private static final int LOOKAHEAD = 4;
+
+    private static void addPair(String op, TokenType type) {
+        char first = op.charAt(0);
+        if (OPERATOR_PAIRS[first] == null)
+            OPERATOR_PAIRS[first] = new TokenType[128];
+        OPERATOR_PAIRS[first][op.charAt(1)] = type;
+    }
+
+    // Source is scanned as raw bytes; tokens only record (start, length) spans into it
+    private final SourceFile contents;
+    private final int length;
     private final Error handler;
-    private String buffer = "";
+    private final Interner symbols;
     private int position = 0;
-    private final ArrayList<Token> tokens = new ArrayList<>();
+    private int limit = Integer.MAX_VALUE; // Scanning stops at the first token boundary at or past this
+    private TokenBuffer target = null; // Tokens of a chunk lexed in parallel
+    private ByteScanner scanner = BEST_SCANNER;
 
+    // Line starts recorded as lines are counted, the line is how many there are and columns come from them
+    private final LineIndex lines;
 
-    private int line = 1; private int col = 1;
+    // The token found by the last scan, kept as plain fields until someone asks for it
+    private boolean hasPending = false;
+    private TokenType pendingType;
+    private int pendingStart; private int pendingEnd; private int pendingAux;
 
-    private void resetCol() { this.col = 1; }
-    private void incrementLine() { this.line++; resetCol(); }
-    private void incrementCol() { this.col++; }
 
-    public Lexer(String contents, Error handler) {
+    private int line() { return lines.count(); }
+    private int col() { return lines.columnOf(lines.count(), this.position); }
+    private void incrementLine() { lines.add(this.position); }
+
+    public Lexer(SourceFile contents, Error handler, Interner symbols) {
+        this(contents, handler, symbols, 0);
+    }
+
+    private Lexer(SourceFile contents, Error handler, Interner symbols, int start) {
         this.contents = contents;
+        this.length = contents.length();
         this.handler = handler;
+        this.symbols = symbols;
+        this.position = start;
+        this.lines = new LineIndex(contents, start);
     }
-    
-    private static boolean isAlphaNumeric(Character c) { return Character.isDigit(c) || Character.isLetter(c) || c.equals('_'); }
-    private void flushBuffer() { this.buffer = ""; }
-    private void appendBuffer(Character c) { this.buffer = buffer.concat(c.toString()); }
-    private void appendToken(TokenType t) { this.tokens.add(new Token(t, line, col)); consume(); }
-    private void appendTokenNoConsume(TokenType t, int real_line, int real_col) { this.tokens.add(new Token(t, real_line, real_col)); }
-
-    private boolean isNumber() { return (Character.isDigit(peek())) || (peek().toString().equals("-") && peek(1) != null && Character.isDigit(peek(1))); }
-    
-    private void checkIdentifier(String ident) {
-        if (ident.startsWith("__lc__"))
-            handler.invalidIdentName(ident, line, col);
+
+    // Lets benchmarks compare scanners on the same input
+    void useScanner(ByteScanner scanner) { this.scanner = scanner; }
+
+    private static boolean hasClass(int c, byte mask) { return c >= 0 && (CHAR_CLASS[c] & mask) != 0; }
+    private static boolean isIdentStart(int c) { return (c < 128) ? hasClass(c, IDENT_START) : Character.isAlphabetic(c); }
+    private static boolean isAlphaNumeric(int c) { return (c < 128) ? hasClass(c, IDENT_PART) : Character.isDigit(c) || Character.isLetter(c); }
+    private static boolean isDigit(int c) { return (c < 128) ? hasClass(c, DIGIT) : Character.isDigit(c); }
+    private static boolean isWhitespace(int c) { return (c < 128) ? hasClass(c, SPACE) : Character.isWhitespace(c); }
+
+    private void emit(TokenType t, int start, int end, int aux) {
+        this.hasPending = true;
+        this.pendingType = t; this.pendingStart = start; this.pendingEnd = end; this.pendingAux = aux;
     }
+    private void appendToken(TokenType t) { emit(t, position, position + 1, -1); consume(); }
+    private void appendTokenNoConsume(TokenType t, int start, int end) { emit(t, start, end, -1); }
+    private void appendSpan(TokenType t, int start, int end) { emit(t, start, end, -1); }
 
-    public ArrayList<Token> tokenize() {
-        
-        while (this.position < this.contents.length()) {
+    private boolean isNumber() { return isDigit(peek()) || (peek() == '-' && isDigit(peek(1))); }
 
-            if (Character.isAlphabetic(peek()) || peek().equals('_')) {
-                handleStr();
+    private void checkIdentifier(int start, int end) {
+        if (startsWith(start, end, "__lc__")) {
+            if (handler == null) throw new ChunkAbort();
+            handler.invalidIdentName(contents.slice(start, end), line(), col());
+        }
+    }
+
+    // Lexes the whole source into a compact buffer, sharing the line index built along the way
+    public TokenBuffer tokenize() {
+        TokenBuffer tokens = new TokenBuffer(contents, symbols, lines);
+        int[] splits = splitPoints();
+        if (splits.length == 0) {
+            scanInto(tokens);
+        } else {
+            tokenizeChunks(tokens, splits);
+        }
+        return tokens;
+    }
+
+    // Re-lexes just the part of a previous lex an edit can have changed. Scanning restarts at the
+    // last token far enough before the edit that its lookahead can't reach it, and stops at the
+    // first token past the edit that lines up with an old token, the rest is carried over shifted.
+    // New names go in a copy of the symbol table, so the previous buffer is left as it was
+    public static TokenChange relex(TokenBuffer previous, TextEdit edit, Error handler) {
+        SourceFile source = edit.apply(previous.getSource());
+        Interner symbols = previous.getSymbols().copy();
+        Lexer lexer = new Lexer(source, handler, symbols);
+        TokenBuffer tokens = new TokenBuffer(source, symbols, lexer.lines);
+
+        int first = 0;
+        while (first < previous.size() && previous.start(first) + LOOKAHEAD <= edit.getOffset())
+            first++;
+        if (first > 0) {
+            first--;
+            lexer.position = previous.start(first);
+            lexer.lines.copyPrefix(previous.getLines(), lexer.position);
+            tokens.copyPrefix(previous, first);
+        }
+
+        int editEnd = edit.getOffset() + edit.insertedLength();
+        int delta = edit.delta();
+        int old = first;
+        while (lexer.scan()) {
+            lexer.hasPending = false;
+            if (lexer.pendingStart >= editEnd) {
+                int oldStart = lexer.pendingStart - delta;
+                while (old < previous.size() && previous.start(old) < oldStart)
+                    old++;
+                if (old < previous.size() && previous.start(old) == oldStart) {
+                    int inserted = tokens.size() - first;
+                    tokens.appendShifted(previous, old, delta);
+                    lexer.lines.appendShifted(previous.getLines(), oldStart, delta);
+                    return new TokenChange(tokens, first, old - first, inserted);
+                }
+            }
+            tokens.add(lexer.pendingType, lexer.pendingStart, lexer.pendingEnd, lexer.pendingAux);
+        }
+        return new TokenChange(tokens, first, previous.size() - first, tokens.size() - first);
+    }
+
+    // Lexes the whole source without keeping any function body. A top-level function's tokens are kept up
+    // to its body's '{', then the '}' that closes it. The offsets where each function's text starts and
+    // where it ends, just past that '}', are handed to bounds in turn. A body still open at the end of the
+    // source keeps none of its tokens, parsing it on its own reports what's wrong with it
+    TokenBuffer outline(IntConsumer bounds) {
+        TokenBuffer headers = new TokenBuffer(contents, symbols, lines);
+        int depth = 0;
+        int header = -1; // Where the current function's tokens begin in headers, -1 between functions
+        while (scan()) {
+            this.hasPending = false;
+            if (header == -1) {
+                header = headers.size();
+                bounds.accept(pendingStart);
+            }
+            if (pendingType == TokenType.OPEN_CURLY) {
+                if (depth++ == 0)
+                    headers.add(pendingType, pendingStart, pendingEnd, pendingAux);
+            } else if (pendingType == TokenType.CLOSE_CURLY && depth > 0) {
+                if (--depth == 0) {
+                    headers.add(pendingType, pendingStart, pendingEnd, pendingAux);
+                    bounds.accept(pendingEnd);
+                    header = -1;
+                }
+            } else if (depth == 0) {
+                headers.add(pendingType, pendingStart, pendingEnd, pendingAux);
+            }
+        }
+        if (header != -1) {
+            if (depth > 0)
+                headers.truncate(header);
+            bounds.accept(this.length);
+        }
+        return headers;
+    }
+
+    // Lexes [start, end) again, after outline, into a buffer sharing the whole source's line index. Start
+    // has to be a token boundary the whole lex reached, so this finds the same tokens and no new errors.
+    // Nothing is scanned up front, each token is lexed when the parser first peeks at it, so lexing and
+    // parsing a function run interleaved
+    TokenBuffer lexRange(int start, int end) {
+        Lexer range = new Lexer(contents, handler, symbols, start);
+        range.limit = end;
+        TokenBuffer tokens = new TokenBuffer(contents, symbols, this.lines);
+        tokens.pullFrom(range);
+        return tokens;
+    }
+
+    // Scans the next token into tokens, false once there are none left
+    boolean pullInto(TokenBuffer tokens) {
+        if (!scan())
+            return false;
+        tokens.add(pendingType, pendingStart, pendingEnd, pendingAux);
+        this.hasPending = false;
+        return true;
+    }
+
+    private void scanInto(TokenBuffer tokens) {
+        while (scan()) {
+            tokens.add(pendingType, pendingStart, pendingEnd, pendingAux);
+            this.hasPending = false;
+        }
+    }
+
+    // Raised instead of reporting an error while lexing a chunk speculatively
+    private static class ChunkAbort extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        ChunkAbort() { super(null, null, false, false); }
+    }
+
+    // Lexes [start, end) as if a line began at start, with no error handler and its own symbol table
+    private static class ChunkTask extends RecursiveTask<Lexer> {
+        private static final long serialVersionUID = 1L;
+        private final SourceFile contents; private final int start; private final int end;
+
+        ChunkTask(SourceFile contents, int start, int end) {
+            this.contents = contents; this.start = start; this.end = end;
+        }
+
+        protected Lexer compute() {
+            Lexer chunk = new Lexer(contents, null, new Interner(), start);
+            chunk.limit = end;
+            chunk.target = new TokenBuffer(contents, chunk.symbols, chunk.lines);
+            try {
+                chunk.scanInto(chunk.target);
+            } catch (RuntimeException e) {
+                chunk.target = null;
+            }
+            return chunk;
+        }
+    }
+
+    // Each chunk is lexed in parallel assuming it starts on a clean line. A chunk is only kept
+    // if the sequential lex really does arrive at its start at column 1; otherwise that stretch
+    // is lexed again here, so the output and any error reported are exactly the sequential ones
+    private void tokenizeChunks(TokenBuffer tokens, int[] splits) {
+        ArrayList<ChunkTask> tasks = new ArrayList<>();
+        for (int i = 0; i < splits.length; i++) {
+            int end = (i + 1 < splits.length) ? splits[i + 1] : Integer.MAX_VALUE;
+            ChunkTask task = new ChunkTask(contents, splits[i], end);
+            ForkJoinPool.commonPool().execute(task);
+            tasks.add(task);
+        }
+
+        this.limit = splits[0];
+        scanInto(tokens);
+        for (int i = 0; i < splits.length; i++) {
+            Lexer chunk = tasks.get(i).join();
+            if (chunk.target != null && this.position == splits[i] && lines.start(line()) == this.position) {
+                int[] symbolMap = new int[chunk.symbols.size()];
+                for (int id = 0; id < symbolMap.length; id++)
+                    symbolMap[id] = symbols.intern(chunk.symbols, id);
+                tokens.append(chunk.target, symbolMap);
+                lines.append(chunk.lines);
+                this.position = chunk.position;
                 continue;
             }
+            this.limit = (i + 1 < splits.length) ? splits[i + 1] : Integer.MAX_VALUE;
+            scanInto(tokens);
+        }
+        this.limit = Integer.MAX_VALUE;
+        scanInto(tokens);
+    }
+
+    // Offsets just after a newline that's followed by a top-level 'fn', spread evenly over the source
+    private int[] splitPoints() {
+        if (this.length < PARALLEL_THRESHOLD)
+            return new int[0];
+        int chunks = Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, this.length / MIN_CHUNK);
+        if (chunks < 2)
+            return new int[0];
+
+        int[] splits = new int[chunks - 1];
+        int count = 0;
+        int step = this.length / chunks;
+        int from = 0;
+        for (int k = 1; k < chunks; k++) {
+            int p = Math.max(k * step, from);
+            while (p + 3 < this.length && !(contents.byteAt(p) == '\n' && contents.byteAt(p + 1) == 'f'
+                    && contents.byteAt(p + 2) == 'n' && hasClass(contents.byteAt(p + 3), SPACE)))
+                p++;
+            if (p + 3 >= this.length)
+                break;
+            splits[count++] = p + 1;
+            from = p + 1;
+        }
+        return Arrays.copyOf(splits, count);
+    }
+
+    private boolean scan() {
+
+        while (this.position < this.length && this.position < this.limit) {
+
+            int c = peek();
+
+            if (isIdentStart(c)) {
+                handleStr();
+                return true;
+            }
 
             if (isNumber()) {
                 handleDigit();
-                continue;
+                return true;
             }
 
-            if (peek().equals('"')) {
+            if (c == '"') {
                 handleString();
-                continue;
+                return true;
             }
 
-            if (peek().equals('\'')) {
+            if (c == '\'') {
                 handleChar();
-                continue;
+                return true;
             }
 
-            if (peek().equals('\n')) {
+            if (c == '\n') {
                 consume();
                 this.incrementLine();
-                this.col = 1;
                 continue;
             }
 
-            if (Character.isWhitespace(peek())) {
+            if (c == ' ' || c == '\t') {
+                this.position = scanner.skipBlanks(contents, this.position, Math.min(this.length, this.limit));
+                continue;
+            }
+
+            if (isWhitespace(c)) {
                 consume();
                 continue;
             }
@@ -80,260 +398,159 @@ public class Lexer {
                 continue;
             }
 
-            String value = this.peekAhead(2);
-            if (value != null) {
-                switch (value) {
-                    case ">=":
-                        appendTokenNoConsume(TokenType.GREATER_EQ, line, col); 
-                        consume(); consume(); continue;
-                    case "<=":
-                        appendTokenNoConsume(TokenType.LESS_EQ, line, col); 
-                        consume(); consume(); continue;
-                    case "==":
-                        appendTokenNoConsume(TokenType.EQUAL, line, col); 
-                        consume(); consume(); continue;
-                    case "!=":
-                        appendTokenNoConsume(TokenType.NOT_EQUAL, line, col); 
-                        consume(); consume(); continue;
-                    case "&&":
-                        appendTokenNoConsume(TokenType.AND_LOGIC, line, col); 
-                        consume(); consume(); continue;
-                    case "||":
-                        appendTokenNoConsume(TokenType.OR_LOGIC, line, col); 
-                        consume(); consume(); continue;
-                    case "++":
-                        appendTokenNoConsume(TokenType.INCREMENT, line, col); 
-                        consume(); consume(); continue;
-                    case "--":
-                        appendTokenNoConsume(TokenType.DECREMENT, line, col); 
-                        consume(); consume(); continue;
-                    case "+=":
-                        appendTokenNoConsume(TokenType.PLUS_EQUAL, line, col); 
-                        consume(); consume(); continue;
-                    case "-=":
-                        appendTokenNoConsume(TokenType.DASH_EQUAL, line, col); 
-                        consume(); consume(); continue;
-                    case "*=":
-                        appendTokenNoConsume(TokenType.STAR_EQUAL, line, col); 
-                        consume(); consume(); continue;
-                    case "/=":
-                        appendTokenNoConsume(TokenType.F_SLASH_EQUAL, line, col);
-                        consume(); consume(); continue;
-                    case "->":
-                        appendTokenNoConsume(TokenType.ARROW, line, col);
-                        consume(); consume(); continue;
-                    case "<<":
-                        appendTokenNoConsume(TokenType.BITWISE_LEFT_SHIFT, line, col);
-                        consume(); consume(); continue;
-                    case ">>":
-                        appendTokenNoConsume(TokenType.BITWISE_RIGHT_SHIFT, line, col);
-                        consume(); consume(); continue;
+            TokenType[] pairs = (c < 128) ? OPERATOR_PAIRS[c] : null;
+            // Two character operators are only considered when there's input following them
+            if (pairs != null && this.position + 2 < this.length) {
+                int second = contents.byteAt(this.position + 1);
+                TokenType pair = (second < 128) ? pairs[second] : null;
+                if (pair != null) {
+                    appendTokenNoConsume(pair, this.position, this.position + 2);
+                    consume(); consume(); return true;
                 }
             }
 
-            switch (peek().toString()) {
-                case ";":
-                    appendToken(TokenType.SEMI); break;
-                case "$":
-                    appendToken(TokenType.DOLLAR); break;
-                case "=":
-                    appendToken(TokenType.ASSIGN); break;
-                case "+":
-                    appendToken(TokenType.PLUS); break;
-                case "*":
-                    appendToken(TokenType.STAR); break;
-                case "-":
-                    appendToken(TokenType.DASH); break;
-                case "/":
-                    appendToken(TokenType.F_SLASH); break;
-                case "(":
-                    appendToken(TokenType.OPEN_PAREN); break;
-                case ")":
-                    appendToken(TokenType.CLOSE_PAREN); break;
-                case "{":
-                    appendToken(TokenType.OPEN_CURLY); break;
-                case "}":
-                    appendToken(TokenType.CLOSE_CURLY); break;
-                case "[":
-                    appendToken(TokenType.LEFT_SQUARE); break;
-                case "]":
-                    appendToken(TokenType.RIGHT_SQUARE); break;
-                case "<":
-                    appendToken(TokenType.LESS_THAN); break;
-                case ">":
-                    appendToken(TokenType.GREATER_THAN); break;
-                case "!":
-                    appendToken(TokenType.NEGATE); break;
-                case ",":
-                    appendToken(TokenType.COMMA); break;
-                case "%":
-                    appendToken(TokenType.PERCENT); break;
-                case "&":
-                    appendToken(TokenType.BITWISE_AND); break;
-                case "|":
-                    appendToken(TokenType.BITWISE_OR); break;
-                case "^":
-                    appendToken(TokenType.BITWISE_XOR); break;
-                default:
-                    handler.unknownPunctuation(peek().toString(), line, col);
-            }
+            TokenType single = (c < 128) ? PUNCTUATION[c] : null;
+            if (single == null && handler == null)
+                throw new ChunkAbort();
+            if (single == null)
+                handler.unknownPunctuation(new String(Character.toChars(c)), line(), col());
+            appendToken(single);
+            return true;
         }
-        return this.tokens;
+        return false;
     }
 
-    
+
     private boolean isCommentStandard() {
-        return peek().toString().equals("/") && peek(1) != null && peek(1).toString().equals("/");
+        return peek() == '/' && peek(1) == '/';
     }
-    
+
     private boolean isCommentMulti() {
-        return peek().toString().equals("/") && peek(1) != null && peek(1).toString().equals("*");
+        return peek() == '/' && peek(1) == '*';
     }
-    
+
     private void handleCommentsMulti() {
         consume();
         consume();
-        while (peek() != null && !peek().toString().equals("*") && peek(1) != null && !peek().toString().equals("/"))
+        while (peek() != EOF && peek() != '*' && peek(1) != EOF && peek() != '/')
         consume();
         consume();
         consume();
     }
-    
+
     private void handleCommentsStandard() {
-        while (peek() != null && !peek().toString().equals("\n"))
-        consume();
+        consumeUntil('\n');
         consume();
         incrementLine();
-        resetCol();
     }
-    
+
     private void handleString() {
-        int real_column = this.col;
-        appendBuffer(consume());
-
-        while (peek() != null && !peek().equals('"'))
-            appendBuffer(consume());
-        appendBuffer(consume());
-        this.tokens.add(new Token(TokenType.STRING_LIT, buffer, line, real_column));
-        flushBuffer();
+        int start = this.position;
+        consume();
+
+        consumeUntil('"');
+        consume();
+        appendSpan(TokenType.STRING_LIT, start, Math.min(this.position, this.length));
     }
 
     private void handleChar() {
-        int real_column = this.col;
-        appendBuffer(consume());
-
-        while (peek() != null && !peek().equals('\''))
-            appendBuffer(consume());
-        appendBuffer(consume());
-        this.tokens.add(new Token(TokenType.CHAR_LIT, buffer, line, real_column));
-        flushBuffer();
+        int start = this.position;
+        consume();
+
+        consumeUntil('\'');
+        consume();
+        appendSpan(TokenType.CHAR_LIT, start, Math.min(this.position, this.length));
     }
 
     private void handleDigit() {
-        int real_column = this.col;
-        appendBuffer(consume());
+        int start = this.position;
+        consume();
 
-        if (peek().toString().equals("-")) appendBuffer(peek());
+        // A trailing '-' is folded into the literal without being consumed
+        if (peek() == '-') {
+            appendSpan(TokenType.INT_LIT, start, this.position + 1);
+            return;
+        }
 
-        while (peek() != null && Character.isDigit(peek()))
-            appendBuffer(consume());
-        this.tokens.add(new Token(TokenType.INT_LIT, buffer, line, real_column));
-        flushBuffer();
+        while (isDigit(peek()))
+            consume();
+        appendSpan(TokenType.INT_LIT, start, this.position);
 
     }
 
     private void handleStr() {
-        int real_column = this.col;
-        appendBuffer(consume());
-        while (peek() != null && isAlphaNumeric(peek()))
-            appendBuffer(consume()); 
-
-        if (this.buffer.equals("else")) {
-            String potentialIf = peekAhead(3);
-            if (potentialIf != null && potentialIf.equals(" if")) {
-                this.buffer = this.buffer.concat(potentialIf);
-                consume(); consume(); consume();
-            }
+        int start = this.position;
+        consume();
+        while (peek() != EOF && isAlphaNumeric(peek()))
+            consume();
+        int end = this.position;
+
+        int keyword = Keywords.lookup(contents, start, end);
+        if (keyword == -1) {
+            checkIdentifier(start, end);
+            emit(TokenType.IDENT, start, end, symbols.intern(contents, start, end));
+            return;
         }
 
-        switch (this.buffer) {
-            case "return":
-                appendTokenNoConsume(TokenType.RETURN, this.line, real_column); break;
-            case "fn":
-                appendTokenNoConsume(TokenType.FN, this.line, real_column); break;
-            case "arr":
-                this.tokens.add(new Token(TokenType.ARR, this.line, real_column)); break;
-            case "int":
-            case "s32":
-                this.tokens.add(new Token(TokenType.DECLARE, "int", line, real_column)); break;
-            case "bool":
-            case "str":
-            case "char":
-                this.tokens.add(new Token(TokenType.DECLARE, this.buffer, line, real_column)); break;
-            case "if":
-                appendTokenNoConsume(TokenType.IF, this.line, real_column); break;
-            case "else if":
-                appendTokenNoConsume(TokenType.ELIF, this.line, real_column); break;
-            case "else":
-                appendTokenNoConsume(TokenType.ELSE, this.line, real_column); break;
-            case "while": 
-                appendTokenNoConsume(TokenType.WHILE, this.line, real_column); break;
-            case "mut": 
-                appendTokenNoConsume(TokenType.MUT, this.line, real_column); break;
-            case "out":
-                appendTokenNoConsume(TokenType.OUT, this.line, real_column); break;
-            case "in":
-                appendTokenNoConsume(TokenType.IN, this.line, real_column); break;
-            case "do":
-                appendTokenNoConsume(TokenType.DO, this.line, real_column); break;
-            case "continue":
-                appendTokenNoConsume(TokenType.CONTINUE, this.line, real_column); break;
-            case "break":
-                appendTokenNoConsume(TokenType.BREAK, this.line, real_column); break;
-            case "loop":
-                appendTokenNoConsume(TokenType.LOOP, this.line, real_column); break;
-            case "for":
-                appendTokenNoConsume(TokenType.FOR, this.line, real_column); break;
-            case "void":
-                appendTokenNoConsume(TokenType.VOID, this.line, real_column); break;
-            case "true":
-                this.tokens.add(new Token(TokenType.INT_LIT, "1", line, real_column)); break;
-            case "false":
-                this.tokens.add(new Token(TokenType.INT_LIT, "0", line, real_column)); break;
-            default:
-                checkIdentifier(buffer);
-                this.tokens.add(new Token(TokenType.IDENT, buffer, line, real_column));
-                break;
+        TokenType type = Keywords.type(keyword);
+        if (type == TokenType.ELSE && this.position + 3 < this.length
+                && peek() == ' ' && peek(1) == 'i' && peek(2) == 'f') {
+            consume(); consume(); consume();
+            type = TokenType.ELIF;
         }
-        flushBuffer();
+
+        if (Keywords.value(keyword) == null)
+            appendTokenNoConsume(type, start, this.position);
+        else
+            emit(type, start, this.position, keyword);
 
     }
 
-    private Character consume() {
-        Character current = null;
-        if (this.position < contents.length())
-            current = this.contents.charAt(this.position);
-        this.position++;
-        this.incrementCol();
-        return current;
+    private boolean startsWith(int start, int end, String prefix) {
+        int n = prefix.length();
+        if (end - start < n)
+            return false;
+        for (int i = 0; i < n; i++) {
+            if (contents.byteAt(start + i) != prefix.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    // Once anything non-ASCII is consumed, columns have to be counted in UTF-16 chars rather than bytes
+    private void consume() {
+        if (this.position >= length) {
+            this.position++;
+            return;
+        }
+        int b = contents.byteAt(this.position);
+        if (b < 0x80) {
+            this.position++;
+            return;
+        }
+        lines.markNonAscii();
+        this.position += SourceFile.sequenceLength(b);
     }
 
-    private String peekAhead(int over) {
-        if (this.position + over >= contents.length())
-            return null;
-        return this.contents.substring(this.position, this.position + over);
+    // Same as consuming one character at a time until 'stop' or the end, runs of ASCII are skipped in bulk
+    private void consumeUntil(int stop) {
+        while (true) {
+            this.position = scanner.find(contents, this.position, this.length, stop);
+            if (this.position >= this.length || contents.byteAt(this.position) < 0x80)
+                return;
+            consume();
+        }
     }
 
-    private Character peek(int over) {
-         if (this.position + over >= contents.length())
-            return null;
-        return this.contents.charAt(this.position + over);
+    private int peek(int over) {
+        if (this.position + over >= length)
+            return EOF;
+        int b = contents.byteAt(this.position + over);
+        return (b < 0x80) ? b : contents.codePointAt(this.position + over);
     }
 
-    private Character peek() {
-        if (this.position >= contents.length())
-            return null;
-        return this.contents.charAt(this.position);
+    private int peek() {
+        return peek(0);
     }
 
 }
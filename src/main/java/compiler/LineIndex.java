@@ -0,0 +1,145 @@
+package compiler;
+import java.util.Arrays;
+
+// Sorted offsets at which each line of a source starts, line n (counting from 1) starts at starts[n - 1].
+// Columns are worked out from these on demand rather than tracked character by character
+public class LineIndex {
+
+    private final SourceFile source;
+    private int[] starts = new int[64];
+    private int count = 1;
+    private boolean ascii = true;
+
+    // Last column worked out, so repeated lookups along a non-ASCII line don't rescan it.
+    // Swapped as a whole so parsers sharing the index on other threads never see half of one
+    private static final class ColumnMark {
+        final int line; final int offset; final int col;
+        ColumnMark(int line, int offset, int col) { this.line = line; this.offset = offset; this.col = col; }
+    }
+    private ColumnMark cached = null;
+
+    public LineIndex(SourceFile source) {
+        this(source, 0);
+    }
+
+    public LineIndex(SourceFile source, int firstStart) {
+        this.source = source;
+        this.starts[0] = firstStart;
+    }
+
+    // Every physical line of the source, one start per newline byte
+    public static LineIndex physical(SourceFile source) {
+        LineIndex lines = new LineIndex(source);
+        for (int i = 0; i < source.length(); i++) {
+            int b = source.byteAt(i);
+            if (b == '\n')
+                lines.add(i + 1);
+            else if (b >= 0x80)
+                lines.ascii = false;
+        }
+        return lines;
+    }
+
+    void add(int offset) {
+        if (count == starts.length)
+            starts = Arrays.copyOf(starts, count * 2);
+        starts[count++] = offset;
+    }
+
+    void markNonAscii() {
+        this.ascii = false;
+    }
+
+    boolean isAscii() {
+        return this.ascii;
+    }
+
+    public int count() {
+        return this.count;
+    }
+
+    public int start(int line) {
+        return this.starts[line - 1];
+    }
+
+    // End of the line's text, not counting the newline that ends it
+    public int end(int line) {
+        return (line < count) ? starts[line] - 1 : source.length();
+    }
+
+    public int lineOf(int offset) {
+        int index = Arrays.binarySearch(starts, 0, count, offset);
+        return (index >= 0) ? index + 1 : -index - 1;
+    }
+
+    public int columnOf(int offset) {
+        return columnOf(lineOf(offset), offset);
+    }
+
+    // Counts UTF-16 chars from the start of the line, stepping over the bytes the same way the lexer does
+    public int columnOf(int line, int offset) {
+        int lineStart = start(line);
+        if (ascii)
+            return offset - lineStart + 1;
+
+        int p = lineStart, col = 1;
+        ColumnMark mark = this.cached;
+        if (mark != null && line == mark.line && offset >= mark.offset) {
+            p = mark.offset; col = mark.col;
+        }
+        while (p < offset) {
+            int b = (p < source.length()) ? source.byteAt(p) : 0;
+            if (b < 0x80) {
+                p++; col++;
+                continue;
+            }
+            col += Character.charCount(source.codePointAt(p));
+            p += SourceFile.sequenceLength(b);
+        }
+        this.cached = new ColumnMark(line, p, col);
+        return col;
+    }
+
+    public void writeTo(AstCache.Output out) {
+        out.writeVarInt(count);
+        out.writeDeltas(starts, count);
+        out.writeVarInt(ascii ? 1 : 0);
+    }
+
+    public static LineIndex readFrom(AstCache.Input in, SourceFile source) {
+        LineIndex lines = new LineIndex(source);
+        lines.count = in.readCount();
+        lines.starts = in.readDeltas(lines.count);
+        lines.ascii = in.readVarInt() == 1;
+        if (lines.count == 0)
+            throw new IllegalStateException("Corrupt cache entry");
+        return lines;
+    }
+
+    // Copies the line starts of another index up to and including the given offset
+    void copyPrefix(LineIndex from, int upTo) {
+        for (int i = 1; i < from.count && from.starts[i] <= upTo; i++)
+            add(from.starts[i]);
+        if (!from.ascii)
+            markNonAscii();
+    }
+
+    // Appends the line starts of another index that come after the given offset, moved by delta
+    void appendShifted(LineIndex from, int after, int delta) {
+        for (int i = 1; i < from.count; i++) {
+            if (from.starts[i] > after)
+                add(from.starts[i] + delta);
+        }
+        if (!from.ascii)
+            markNonAscii();
+    }
+
+    // Appends an index built for a later chunk of the same source, whose first line is already recorded here
+    void append(LineIndex chunk) {
+        for (int i = 1; i < chunk.count; i++)
+            add(chunk.starts[i]);
+        if (!chunk.ascii)
+            markNonAscii();
+    }
+
+}
@@ -4,33 +4,42 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 						
+import compiler.nodes.AstJson;
+import compiler.nodes.AstPrinter;
 import compiler.nodes.NodeFunction;
 import compiler.nodes.NodeProgram;
 
 public class Main {
 
-	private String source;
+	private SourceFile source;
 	private final HashMap<String, String> commandArgs = new HashMap<>();
 	private final HashMap<String, String> configSettings = new HashMap<>();
+	// The token and tree dumps, buffered rather than printed a line at a time. Flushed after each one
+	private final Writer dump = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
 	
 	public Main() {}
    
 	private void setSource(String file_path) {
 		try {
-			this.source = Files.readString(Paths.get(file_path));
+			this.source = SourceFile.map(Paths.get(file_path));
 		} catch (Exception e) {
 			Error.handleError("KEY", "Unable to open specified file, check it exists");
 		}
 	}
 
-	private String getFileSource() {
+	private SourceFile getFileSource() {
 		return this.source;
 	}
 
@@ -41,8 +50,13 @@ public class Main {
 		System.out.println("\t-o | --out => Specify the name of the executable (default to a.out)");
 		System.out.println("\t-t | --tokens => Logs to stdout a summary of all the tokens");
 		System.out.println("\t-p | --parser => Logs to stdout a summary of the parse tree");
+		System.out.println("\t--tokens=json | --parser=json => Logs the tokens or the parse tree to stdout as JSON instead, both in one document when both are asked for");
 		System.out.println("\t-a | --assembly => Generates a .c file instead of an executable");
 		System.out.println("\t-q | --quiet  => Silence any non-crucial warnings");
+		System.out.println("\t--no-cache => Always lex and parse the source, without reading or writing the AST cache");
+		System.out.println("\t--all-errors => Carry on past errors and report all of them together, sorted by position");
+		System.out.println("\t--stream => Compile a function at a time, holding one function's tree in memory rather than the whole program's");
+		System.out.println("\t--watch => Keep rewriting out.c as the source changes, redoing only the functions a change reaches");
 		System.out.println("\nDeveloped by Joshua Wills 2024");
 		System.out.println("See https://github.com/joshuawills/XY-Compiler for documentation and source code");
 		System.exit(0);
@@ -71,10 +85,16 @@ public class Main {
 				case "--tokens":
 					this.commandArgs.put("tokensLog", "true");
 					break;
+				case "--tokens=json":
+					this.commandArgs.put("tokensLog", "json");
+					break;
 				case "-p":
 				case "--parser":
 					this.commandArgs.put("parserLog", "true");
 					break;
+				case "--parser=json":
+					this.commandArgs.put("parserLog", "json");
+					break;
 				case "-a":
 				case "--assembly":
 					this.commandArgs.put("assembly", "true");
@@ -83,6 +103,18 @@ public class Main {
 				case "--quiet":
 					this.commandArgs.put("quiet", "true");
 					break;
+				case "--no-cache":
+					this.commandArgs.put("noCache", "true");
+					break;
+				case "--all-errors":
+					this.commandArgs.put("allErrors", "true");
+					break;
+				case "--stream":
+					this.commandArgs.put("stream", "true");
+					break;
+				case "--watch":
+					this.commandArgs.put("watch", "true");
+					break;
 				default:
 					// Assume you've provided the filename then
 					this.commandArgs.put("sourceName", arg);
@@ -103,6 +135,54 @@ public class Main {
 		}
 	}
 
+	private void logTokens(TokenBuffer tokens) {
+		try {
+			this.dump.write("TOKENS: " + System.lineSeparator());
+			tokens.dump(this.dump);
+			this.dump.flush();
+		} catch (IOException e) {
+			Error.handleError("KEY", "Unable to write the token summary");
+		}
+	}
+
+	private void logTree(NodeProgram program) {
+		try {
+			this.dump.write("PARSER: \n" + System.lineSeparator());
+			AstPrinter printer = new AstPrinter(program.getArena(), this.dump);
+			for (NodeFunction function: program.getNodeFunctions()) {
+				printer.print(function.getNode());
+				this.dump.write(System.lineSeparator());
+			}
+			this.dump.flush();
+		} catch (IOException e) {
+			Error.handleError("KEY", "Unable to write the parse tree summary");
+		}
+	}
+
+	private boolean json(String log) {
+		return "json".equals(this.commandArgs.get(log));
+	}
+
+	// Whichever of the tokens and the tree were asked for as JSON, together in one document. Diagnostics
+	// go to stderr, so stdout is only ever the document
+	private void logJson(TokenBuffer tokens, NodeProgram program) {
+		try {
+			this.dump.write("{");
+			if (tokens != null) {
+				this.dump.write("\"tokens\": ");
+				tokens.writeJson(this.dump);
+			}
+			if (program != null) {
+				this.dump.write((tokens != null) ? ",\n\"functions\": " : "\"functions\": ");
+				new AstJson(program.getArena(), this.dump).write(program);
+			}
+			this.dump.write("}\n");
+			this.dump.flush();
+		} catch (IOException e) {
+			Error.handleError("KEY", "Unable to write the JSON summary");
+		}
+	}
+
 	public static void main(String[] args) {
 		
 		Main myCompiler = new Main();
@@ -118,7 +198,8 @@ public class Main {
 		myCompiler.setSource(filePath);
 
 		Error myHandler = new Error(myCompiler.getFileSource(), filePath);
-		Lexer myLexer = new Lexer(myCompiler.getFileSource(), myHandler);
+		Interner symbols = new Interner();
+		Lexer myLexer = new Lexer(myCompiler.getFileSource(), myHandler, symbols);
 
 		// Read in config settings
 		File possibleConfig = new File("xy.config");
@@ -145,42 +226,147 @@ public class Main {
 			}
 		}
 
-		ArrayList<Token> tokens = myLexer.tokenize();
-		if (myCompiler.commandArgs.containsKey("tokensLog")) {
-			System.out.println("TOKENS: ");
-			for (Token x: tokens) 
-				System.out.println("\t" + x.toString());
+		if (myCompiler.commandArgs.containsKey("watch")) {
+			for (String whole: new String[] {"tokensLog", "parserLog", "allErrors", "stream"}) {
+				if (myCompiler.commandArgs.containsKey(whole))
+					Error.handleError("KEY", "--watch can't be combined with -t, -p, --all-errors or --stream");
+			}
+			myCompiler.watch(filePath);
+			return;
+		}
+
+		// The dumps and sorted diagnostics need the whole program at once, which is what streaming avoids holding
+		if (myCompiler.commandArgs.containsKey("stream")) {
+			for (String whole: new String[] {"tokensLog", "parserLog", "allErrors"}) {
+				if (myCompiler.commandArgs.containsKey(whole))
+					Error.handleError("KEY", "--stream can't be combined with -t, -p or --all-errors");
+			}
+			// Functions are written as they're checked, so they go in a file beside out.c that only replaces it
+			// once they've all passed. An error partway exits and leaves the last good out.c as it was
+			Path out = Paths.get("out.c").toAbsolutePath();
+			try {
+				Path partial = Files.createTempFile(out.getParent(), "out", ".c.part");
+				partial.toFile().deleteOnExit();
+				try (Writer writer = new BufferedWriter(new FileWriter(partial.toFile()))) {
+					new FunctionPipeline(myCompiler.getFileSource(), myHandler, symbols, myCompiler.configSettings).compile(writer);
+				}
+				Files.move(partial, out, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				Error.handleError("KEY", "Unable to write out.c");
+			}
+			myCompiler.build();
+			return;
+		}
+
+		// An unchanged source compiled before comes straight from the cache, tokens and tree included. Its
+		// warnings are kept as printed, so it's skipped when they have to be sorted in with everything else
+		boolean allErrors = myCompiler.commandArgs.containsKey("allErrors");
+		AstCache cache = null;
+		AstCache.Entry cached = null;
+		if (!myCompiler.commandArgs.containsKey("noCache") && !allErrors) {
+			cache = AstCache.open(myCompiler.getFileSource(), myCompiler.configSettings);
+			if (cache != null)
+				cached = cache.load();
+		}
+
+		TokenBuffer tokens = (cached != null) ? cached.getTokens() : myLexer.tokenize();
+		if (cached != null)
+			symbols = tokens.getSymbols();
+		// JSON tokens go out now unless the tree is going in the same document, once it's been verified
+		if (myCompiler.json("tokensLog") && !myCompiler.json("parserLog"))
+			myCompiler.logJson(tokens, null);
+		else if (myCompiler.commandArgs.containsKey("tokensLog") && !myCompiler.json("tokensLog"))
+			myCompiler.logTokens(tokens);
+
+		// Lexing errors still stop straight away, parsing and verifying carry on past theirs
+		Error.Diagnostics diagnostics = allErrors ? Error.collect() : null;
+
+		NodeProgram myNode;
+		if (cached != null) {
+			Error.replay(cached.getWarnings());
+			myNode = cached.getProgram();
+		} else {
+			Parser myParser = new Parser(tokens, myCompiler.configSettings, myHandler);
+			Error.Captured parsing = Error.record();
+			myNode = myParser.parseProgram();
+			String warnings = parsing.stop();
+			if (cache != null)
+				cache.store(tokens, myNode, warnings);
 		}
-			
-		Parser myParser = new Parser(tokens, myCompiler.configSettings, myHandler);
-		NodeProgram myNode = myParser.parseProgram();
+
+		// A tree with statements dropped would only produce more errors about what's missing
+		if (diagnostics != null && diagnostics.hasErrors())
+			diagnostics.report();
 		
 		Generator myGenerator = new Generator(myNode);
 		
-		Verifier myVerifier = new Verifier(myNode, myCompiler.configSettings, myHandler);
+		Verifier myVerifier = new Verifier(myNode, symbols, myCompiler.configSettings, myHandler);
 		myVerifier.verify();
+		if (diagnostics != null)
+			diagnostics.report();
 		
-		if (myCompiler.commandArgs.containsKey("parserLog")) {
-			System.out.println("PARSER: \n");
-			for (NodeFunction function: myNode.getNodeFunctions())
-				System.out.println(function.toString());
-		}
+		if (myCompiler.json("parserLog"))
+			myCompiler.logJson(myCompiler.json("tokensLog") ? tokens : null, myNode);
+		else if (myCompiler.commandArgs.containsKey("parserLog"))
+			myCompiler.logTree(myNode);
 		String contents = myGenerator.generateProgram();
 		try {
 			BufferedWriter writer = new BufferedWriter(new FileWriter("out.c"));
 			writer.write(contents);
 			writer.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+			return;
+		}
+		myCompiler.build();
+
+	}
 
-			if (myCompiler.commandArgs.containsKey("assembly"))
+	// Rewrites out.c each time the source changes. Errors are printed without stopping, and the next version
+	// is compiled as usual
+	private void watch(String filePath) {
+		QueryEngine engine = new QueryEngine(this.configSettings);
+		Path path = Paths.get(filePath);
+		long modified = -1;
+		while (true) {
+			try {
+				long now = Files.getLastModifiedTime(path).toMillis();
+				if (now != modified) {
+					modified = now;
+					SourceFile source = SourceFile.read(path);
+					Error handler = new Error(source, filePath);
+					long start = System.nanoTime();
+					String[] contents = new String[1];
+					Error.Captured version = Error.capture(() -> contents[0] = engine.compile(source, handler));
+					Error.replay(version.getOutput());
+					if (!version.failed()) {
+						try (Writer writer = new BufferedWriter(new FileWriter("out.c"))) {
+							writer.write(contents[0]);
+						}
+						System.out.println(String.format("Wrote out.c in %d ms, %d of %d functions parsed and %d checked",
+							(System.nanoTime() - start) / 1_000_000, engine.getParsed(), engine.size(), engine.getChecked()));
+					}
+				}
+				Thread.sleep(200);
+			} catch (IOException | InterruptedException e) {
+				Error.handleError("KEY", "Unable to keep watching " + filePath);
+			}
+		}
+	}
+
+	// Turns out.c into the executable, and runs it if asked to
+	private void build() {
+		try {
+			if (this.commandArgs.containsKey("assembly"))
 				System.exit(0);
 
 			String executableName = "a.out";
-			if (myCompiler.commandArgs.containsKey("executableName"))
-				executableName = myCompiler.commandArgs.get("executableName");
+			if (this.commandArgs.containsKey("executableName"))
+				executableName = this.commandArgs.get("executableName");
 
-			myCompiler.handleShellCommand(String.format("gcc out.c -o %s", executableName));
-			myCompiler.handleShellCommand("rm out.c");
-			if (myCompiler.commandArgs.containsKey("run"))  {
+			this.handleShellCommand(String.format("gcc out.c -o %s", executableName));
+			this.handleShellCommand("rm out.c");
+			if (this.commandArgs.containsKey("run"))  {
 				ProcessBuilder runProcessBuilder = new ProcessBuilder("./" + executableName);
 				runProcessBuilder.redirectErrorStream(true);
 				Process runProcess = runProcessBuilder.start();
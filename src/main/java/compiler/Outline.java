@@ -0,0 +1,78 @@
+package compiler;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeFunction;
+import compiler.nodes.NodeProgram;
+
+// What a first pass over a source keeps of it, see Lexer.outline. Every function's header, parsed into a
+// program whose functions have empty bodies, and where each function's text starts and ends. Any one
+// function can then be lexed again on its own
+public class Outline {
+
+    private final Lexer lexer;
+    private final TokenBuffer headers;
+    private final NodeProgram signatures;
+
+    // Where each function's text starts and ends, in pairs
+    private int[] bounds = new int[64];
+    private int boundCount = 0;
+
+    private Outline(SourceFile source, Error handler, Interner symbols, HashMap<String, String> configSettings) {
+        this.lexer = new Lexer(source, handler, symbols);
+        this.headers = lexer.outline(this::addBound);
+        this.signatures = new Parser(headers, configSettings, handler).parseProgram();
+    }
+
+    public static Outline of(SourceFile source, Error handler, Interner symbols, HashMap<String, String> configSettings) {
+        return new Outline(source, handler, symbols, configSettings);
+    }
+
+    private void addBound(int offset) {
+        if (boundCount == bounds.length)
+            bounds = Arrays.copyOf(bounds, boundCount * 2);
+        bounds[boundCount++] = offset;
+    }
+
+    // Every function with an empty body, for checking calls against
+    public NodeProgram getSignatures() {
+        return this.signatures;
+    }
+
+    public LineIndex getLines() {
+        return this.headers.getLines();
+    }
+
+    public int size() {
+        return boundCount / 2;
+    }
+
+    public int start(int i) {
+        return bounds[2 * i];
+    }
+
+    public int end(int i) {
+        return bounds[2 * i + 1];
+    }
+
+    public TokenBuffer lex(int i) {
+        return lexer.lexRange(start(i), end(i));
+    }
+
+    // The function whose text holds main's. Verifier.verifySignatures makes sure there's exactly one
+    public int mainFunction() {
+        AstArena arena = signatures.getArena();
+        for (NodeFunction function: signatures.getNodeFunctions()) {
+            if (!function.getFunctionName().equals("main"))
+                continue;
+            int offset = headers.start(arena.tokenIndex(function.getNode()));
+            for (int i = 0; i < size(); i++) {
+                if (start(i) <= offset && offset < end(i))
+                    return i;
+            }
+        }
+        throw new IllegalStateException("No text for main");
+    }
+
+}
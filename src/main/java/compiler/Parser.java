@@ -1,268 +1,500 @@
 package compiler;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+import compiler.nodes.AstArena;
 import compiler.nodes.NodeFunction;
-import compiler.nodes.NodeParameters;
+import compiler.nodes.NodeKind;
 import compiler.nodes.NodeProgram;
-import compiler.nodes.expression_nodes.BinaryExpression;
-import compiler.nodes.expression_nodes.NodeExpression;
-import compiler.nodes.expression_nodes.UnaryExpression;
-import compiler.nodes.expression_nodes.term_nodes.ArrayAccess;
-import compiler.nodes.expression_nodes.term_nodes.ArrayExpression;
-import compiler.nodes.expression_nodes.term_nodes.CharExpression;
-import compiler.nodes.expression_nodes.term_nodes.FuncCallNode;
-import compiler.nodes.expression_nodes.term_nodes.IdentExpression;
-import compiler.nodes.expression_nodes.term_nodes.IntLitExpression;
-import compiler.nodes.expression_nodes.term_nodes.ItExpression;
-import compiler.nodes.expression_nodes.term_nodes.NegationExpression;
-import compiler.nodes.expression_nodes.term_nodes.NodeTerm;
-import compiler.nodes.expression_nodes.term_nodes.ParenExpression;
-import compiler.nodes.expression_nodes.term_nodes.StringExpression;
-import compiler.nodes.statement_nodes.NodeAssign;
-import compiler.nodes.statement_nodes.NodeLet;
-import compiler.nodes.statement_nodes.NodePrint;
-import compiler.nodes.statement_nodes.NodeReturn;
-import compiler.nodes.statement_nodes.NodeScan;
-import compiler.nodes.statement_nodes.NodeScope;
-import compiler.nodes.statement_nodes.NodeStatement;
-import compiler.nodes.statement_nodes.conditionals.NodeIf;
-import compiler.nodes.statement_nodes.conditionals.NodeIfPredicate;
-import compiler.nodes.statement_nodes.conditionals.NodeIfPredicateElif;
-import compiler.nodes.statement_nodes.conditionals.NodeIfPredicateElse;
-import compiler.nodes.statement_nodes.loops.NodeBreak;
-import compiler.nodes.statement_nodes.loops.NodeContinue;
-import compiler.nodes.statement_nodes.loops.NodeDo;
-import compiler.nodes.statement_nodes.loops.NodeFor;
-import compiler.nodes.statement_nodes.loops.NodeLoop;
-import compiler.nodes.statement_nodes.loops.NodeWhile;
 
 public class Parser {
 
-    private final ArrayList<Token> tokens;
-    private int iterator = 0;
+    private static final EnumSet<TokenType> STATEMENT_STARTS = EnumSet.of(
+        TokenType.RETURN, TokenType.MUT, TokenType.DECLARE, TokenType.ARR, TokenType.IF, TokenType.WHILE,
+        TokenType.FOR, TokenType.LOOP, TokenType.DO, TokenType.CONTINUE, TokenType.BREAK, TokenType.OUT,
+        TokenType.OPEN_CURLY, TokenType.IDENT
+    );
+
+    // Nothing finished yet, the top frame is waiting on the next term or statement
+    private static final int PENDING = -2;
+
+    // What a frame is waiting on, and what it does with it. Expression frames first:
+    private static final int EXPRESSION = 0;     // operand, then climbs operators above level a
+    private static final int BINARY = 1;         // right operand of operator b, with a on the left
+    private static final int PAREN = 2;          // expression before ')'
+    private static final int NEGATION = 3;       // term to negate
+    private static final int ARRAY_ACCESS = 4;   // index before ']', a is the array's name
+    private static final int CALL_ARGUMENT = 5;  // next argument of a call to a, b is the list mark
+    private static final int ARRAY_ELEMENT = 6;  // next element, a is the list mark
+    // and statement frames, which wait on a scope or on the statements inside one
+    private static final int BLOCK = 7;          // next statement inside braces, a is the list mark, b and c the mark
+                                                 // and token index it starts at
+    private static final int SINGLE = 8;         // the one statement of a scope without braces
+    private static final int IF = 9;             // body of an if with condition a
+    private static final int IF_PREDICATE = 10;  // elif or else chain after condition a and body b
+    private static final int ELIF = 11;          // body of an elif with condition a
+    private static final int ELIF_PREDICATE = 12;
+    private static final int ELSE = 13;
+    private static final int WHILE = 14;         // body, a is the condition
+    private static final int FOR = 15;           // body, a b c are the initializer, condition and iterator
+    private static final int LOOP = 16;          // body, a is the count token
+    private static final int DO = 17;            // body, the condition comes after it
+    private static final int BRACED = 18;        // scope opened by a statement that was only '{'
+
+    // Rules return the arena slot of the node they parsed, AstArena.NONE, or PENDING once they've
+    // queued a frame for what's left and the term or expression it's waiting on
+    @FunctionalInterface
+    private interface PrefixRule { int parse(Parser parser); }
+
+    @FunctionalInterface
+    private interface InfixRule { int parse(Parser parser, int lhs, TokenType operator, int level); }
+
+    // Indexed by TokenType ordinal. Precedence follows C, -1 for tokens that can't continue an expression
+    // https://www.tutorialspoint.com/cprogramming/c_operators_precedence.htm
+    private static final int[] PRECEDENCE = new int[TokenType.values().length];
+    private static final boolean[] RIGHT_ASSOCIATIVE = new boolean[TokenType.values().length];
+    private static final PrefixRule[] PREFIX = new PrefixRule[TokenType.values().length];
+    private static final InfixRule[] INFIX = new InfixRule[TokenType.values().length];
+
+    static {
+        Arrays.fill(PRECEDENCE, -1);
+        binary(0, TokenType.OR_LOGIC);
+        binary(1, TokenType.AND_LOGIC);
+        binary(2, TokenType.BITWISE_OR);
+        binary(3, TokenType.BITWISE_XOR);
+        binary(4, TokenType.BITWISE_AND);
+        binary(5, TokenType.EQUAL, TokenType.NOT_EQUAL);
+        binary(6, TokenType.LESS_THAN, TokenType.LESS_EQ, TokenType.GREATER_EQ, TokenType.GREATER_THAN);
+        binary(7, TokenType.BITWISE_LEFT_SHIFT, TokenType.BITWISE_RIGHT_SHIFT);
+        binary(8, TokenType.PLUS, TokenType.DASH);
+        binary(9, TokenType.STAR, TokenType.F_SLASH, TokenType.PERCENT);
+
+        prefix(TokenType.INT_LIT, p -> p.leaf(NodeKind.INT_LIT));
+        prefix(TokenType.STRING_LIT, p -> p.leaf(NodeKind.STRING));
+        prefix(TokenType.CHAR_LIT, p -> p.leaf(NodeKind.CHAR));
+        prefix(TokenType.DOLLAR, p -> { p.skip(); return p.arena.add(NodeKind.IT, AstArena.NONE, AstArena.UNSET); });
+        prefix(TokenType.OPEN_PAREN, p -> { p.skip(); p.await(PAREN); return p.expression(0); });
+        prefix(TokenType.NEGATE, p -> { p.skip(); p.await(NEGATION); return PENDING; });
+        prefix(TokenType.IDENT, Parser::parseIdentTerm);
+        prefix(TokenType.LEFT_SQUARE, Parser::parseArrayTerm);
+    }
+
+    private static void binary(int level, TokenType... operators) {
+        for (TokenType operator: operators) {
+            PRECEDENCE[operator.ordinal()] = level;
+            INFIX[operator.ordinal()] = Parser::parseBinary;
+        }
+    }
+
+    private static void prefix(TokenType type, PrefixRule rule) {
+        PREFIX[type.ordinal()] = rule;
+    }
+
+    // Programs with fewer tokens than this are always parsed on one thread
+    private static final int PARALLEL_THRESHOLD = 1 << 18;
+    private static final int MIN_CHUNK = 1 << 14;
+
+    private final TokenBuffer tokens;
+    private final AstArena arena;
     private final HashMap<String, String> configSettings;
     private Error handler;
+    private final boolean recovering; // Errors are being collected, see Error.collect
+
+    // Unfinished constructs, innermost last, four ints each: the kind and three operands. Nesting
+    // lives here instead of on the thread stack, so it's only limited by the heap
+    private int[] frames = new int[64];
+    private int frameCount = 0;
+    private int limit = Integer.MAX_VALUE; // Parsing stops at the first function starting at or past this
+
+    // What a chunk parsed in parallel produced
+    private NodeProgram parsed = null;
+    private Error.Captured output = null;
 
-    public Parser(ArrayList<Token> tokens, HashMap<String, String> configSettings, Error handler) {
+    public Parser(TokenBuffer tokens, HashMap<String, String> configSettings, Error handler) {
         this.tokens = tokens;
+        this.arena = new AstArena(tokens);
         this.configSettings = configSettings;
         this.handler = handler;
+        this.recovering = Error.collecting();
     }
 
     public NodeProgram parseProgram() {
 
-        NodeProgram program = new NodeProgram();
-        while (peek() != null)
-            program.appendFunction(parseFunction());
+        NodeProgram program = new NodeProgram(arena);
+        int[] splits = splitPoints();
+        if (splits.length == 0) {
+            parseFunctions(program);
+        } else {
+            parseChunks(program, splits);
+        }
+        arena.trim();
         return program;
 
     }
+
+    private void parseFunctions(NodeProgram program) {
+        while (peekType(0) != null && here() < limit) {
+            if (recovering)
+                recoverFunction(program);
+            else
+                program.appendFunction(parseFunction());
+        }
+    }
+
+    // Errors a function's body can't recover from drop the whole function, and parsing picks up again at the next 'fn'
+    private void recoverFunction(NodeProgram program) {
+        int mark = arena.mark();
+        try {
+            program.appendFunction(parseFunction());
+        } catch (Error.Reported e) {
+            frameCount = 0;
+            arena.reset(mark);
+            while (peekType(0) != null && !check(TokenType.FN))
+                skip();
+        }
+    }
+
+    // Parses the functions from start until one starts at or past end, on its own cursor and arena
+    // and with anything it would print held back
+    private static class ChunkTask extends RecursiveTask<Parser> {
+        private static final long serialVersionUID = 1L;
+        private final Parser parent; private final int start; private final int end;
+
+        ChunkTask(Parser parent, int start, int end) {
+            this.parent = parent; this.start = start; this.end = end;
+        }
+
+        protected Parser compute() {
+            Parser chunk = new Parser(parent.tokens.reader(start), parent.configSettings, parent.handler);
+            chunk.limit = end;
+            chunk.parsed = new NodeProgram(chunk.arena);
+            chunk.output = Error.capture(() -> chunk.parseFunctions(chunk.parsed));
+            return chunk;
+        }
+    }
+
+    // Each chunk is parsed in parallel from a top-level 'fn'. A chunk is only kept if the sequential
+    // parse really does arrive at its start, and its held back output is replayed at that point, so
+    // warnings come out in source order and the first error in the source is the one reported
+    private void parseChunks(NodeProgram program, int[] splits) {
+        ArrayList<ChunkTask> tasks = new ArrayList<>();
+        for (int i = 0; i < splits.length; i++) {
+            int end = (i + 1 < splits.length) ? splits[i + 1] : Integer.MAX_VALUE;
+            ChunkTask task = new ChunkTask(this, splits[i], end);
+            ForkJoinPool.commonPool().execute(task);
+            tasks.add(task);
+        }
+
+        this.limit = splits[0];
+        parseFunctions(program);
+        for (int i = 0; i < splits.length; i++) {
+            Parser chunk = tasks.get(i).join();
+            if (here() == splits[i]) {
+                chunk.output.replay();
+                int offset = arena.append(chunk.arena);
+                for (NodeFunction function: chunk.parsed.getNodeFunctions())
+                    program.appendFunction(new NodeFunction(arena, function.getNode() + offset));
+                tokens.seek(chunk.here());
+                continue;
+            }
+            this.limit = (i + 1 < splits.length) ? splits[i + 1] : Integer.MAX_VALUE;
+            parseFunctions(program);
+        }
+        this.limit = Integer.MAX_VALUE;
+        parseFunctions(program);
+    }
+
+    // Indices of 'fn' tokens outside any braces, spread evenly over the program
+    private int[] splitPoints() {
+        int size = tokens.size();
+        // Collected errors have to be recovered from in order, on the thread collecting them
+        if (size < PARALLEL_THRESHOLD || recovering)
+            return new int[0];
+        int chunks = Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, size / MIN_CHUNK);
+        if (chunks < 2)
+            return new int[0];
+
+        int[] splits = new int[chunks - 1];
+        int count = 0;
+        int step = size / chunks;
+        int depth = 0;
+        for (int i = 0; i < size && count < splits.length; i++) {
+            switch (tokens.type(i)) {
+                case OPEN_CURLY: depth++; break;
+                case CLOSE_CURLY: depth--; break;
+                case FN:
+                    if (depth == 0 && i >= (count + 1) * step)
+                        splits[count++] = i;
+                    break;
+                default: break;
+            }
+        }
+        return Arrays.copyOf(splits, count);
+    }
     
-    private NodeParameters parseParameters() {
+    private int parseParameters() {
 
-        NodeParameters p = new NodeParameters();
-        expect(TokenType.OPEN_PAREN);
+        int mark = arena.mark();
+        skip(TokenType.OPEN_PAREN);
 
-        if (tryConsume(TokenType.CLOSE_PAREN) != null)
-            return p;
+        if (tryConsume(TokenType.CLOSE_PAREN))
+            return arena.addList(NodeKind.PARAMETERS, AstArena.NONE, 0, mark);
     
         while (true) {
 
-            boolean isMutable = (tryConsume(TokenType.MUT) != null);
+            boolean isMutable = tryConsume(TokenType.MUT);
+            int typeAt = here();
             Token token = expect(TokenType.DECLARE, TokenType.ARR);
-            String name;
             if (token.getType().equals(TokenType.ARR)) {
-                expect(TokenType.LESS_THAN);
-                String inner = expect(TokenType.DECLARE).getValue();
-                expect(TokenType.GREATER_THAN);
-                token.setValue(inner);
+                skip(TokenType.LESS_THAN);
+                skip(TokenType.DECLARE);
+                skip(TokenType.GREATER_THAN);
             }
-            name = expect(TokenType.IDENT).getValue();
-            if (tryConsume(TokenType.CLOSE_PAREN) != null) {
-                p.addVariable(name, token, isMutable);
+            int nameAt = here();
+            skip(TokenType.IDENT);
+            arena.push(arena.add(NodeKind.PARAMETER, nameAt, declaration(typeAt, isMutable)));
+            if (tryConsume(TokenType.CLOSE_PAREN))
                 break;
-            }
-            expect(TokenType.COMMA);
-            p.addVariable(name, token, isMutable);
+            skip(TokenType.COMMA);
         }
-        return p;
+        return arena.addList(NodeKind.PARAMETERS, AstArena.NONE, 0, mark);
     }
 
     private NodeFunction parseFunction() {
-        expect(TokenType.FN);
-        String functionName = expect(TokenType.IDENT).getValue();
-        NodeParameters p = parseParameters();
-        expect(TokenType.ARROW);
-        Token returnToken = expect(TokenType.DECLARE, TokenType.VOID);
-        NodeScope scope = parseScope();
-        return new NodeFunction(scope, functionName, returnToken, p);
+        skip(TokenType.FN);
+        int nameAt = here();
+        skip(TokenType.IDENT);
+        int parameters = parseParameters();
+        skip(TokenType.ARROW);
+        int returnAt = here();
+        expect(TokenType.DECLARE, TokenType.VOID);
+        int scope = parseScope();
+        return new NodeFunction(arena, arena.add(NodeKind.FUNCTION, nameAt, returnAt, parameters, scope));
     }
 
+    // Node with no children that keeps the current token
+    private int leaf(NodeKind kind) {
+        int at = here();
+        skip();
+        return arena.add(kind, at, 0);
+    }
 
-    private NodeTerm parseTerm() {
-        
-        Token t = peek();
-        NodeExpression e;
-        if (t == null) return null;
+    // Declarations keep the type token's index and a flag (constant for variables, mutable for parameters) in one slot
+    private static int declaration(int typeAt, boolean flag) {
+        return (typeAt << 1) | (flag ? 1 : 0);
+    }
 
-        switch (t.getType()) {
-            case INT_LIT:
-                return new IntLitExpression(consume());
+    private void await(int kind) {
+        await(kind, 0, 0, 0);
+    }
 
-            case STRING_LIT:
-                return new StringExpression(consume());
+    private void await(int kind, int a) {
+        await(kind, a, 0, 0);
+    }
 
-            case CHAR_LIT:
-                return new CharExpression(consume());
+    private void await(int kind, int a, int b) {
+        await(kind, a, b, 0);
+    }
 
-            case DOLLAR:
-                consume(); return new ItExpression(); 
-                
-            case OPEN_PAREN:
-                consume();
-                e = parseExpression(0);
-                expect(TokenType.CLOSE_PAREN);
-                return new ParenExpression(e);
-                
-            case NEGATE:
-                consume();
-                e = parseTerm();
-                return new NegationExpression(e);
-                
-            case IDENT:
-                // Not a func call
-                Token nextToken = peek(1);
-                if (nextToken == null || (!nextToken.getType().equals(TokenType.OPEN_PAREN) && !nextToken.getType().equals(TokenType.LEFT_SQUARE))) {
-                    return new IdentExpression(consume());
-                }
-                
-                // Array Access
-                if (nextToken.getType().equals(TokenType.LEFT_SQUARE)) {
-                    consume(); consume();
-                    NodeExpression expression = parseExpression(0);
-                    expect(TokenType.RIGHT_SQUARE);
-                    return new ArrayAccess(t, expression);
-                }
-                
-                // Is a func call
-                return handleFuncCall();
-                
-            case LEFT_SQUARE:
-                consume();  
-                ArrayList<NodeExpression> expressions = new ArrayList<>();
-
-                if (tryConsume(TokenType.RIGHT_SQUARE) != null)
-                    return new ArrayExpression(expressions);
-
-                while (true) {
-                    expressions.add(parseExpression(0));
-                    if (tryConsume(TokenType.RIGHT_SQUARE) != null)
-                        break;
-                    expect(TokenType.COMMA);
-                }
-                return new ArrayExpression(expressions);
+    private void await(int kind, int a, int b, int c) {
+        if (frameCount + 4 > frames.length)
+            frames = Arrays.copyOf(frames, frames.length * 2);
+        frames[frameCount++] = kind;
+        frames[frameCount++] = a;
+        frames[frameCount++] = b;
+        frames[frameCount++] = c;
+    }
 
+    // Starts an expression: its first operand is the next term to parse
+    private int expression(int minimumPrecedence) {
+        await(EXPRESSION, minimumPrecedence);
+        return PENDING;
+    }
+
+    private int parseTerm() {
+        return finishExpression(frameCount, term());
+    }
+
+    private int parseExpression(int minimumPrecedence) { // set to 0 as default
+        return finishExpression(frameCount, expression(minimumPrecedence));
+    }
+
+    // Runs the expression frames above base. Each finished node goes to the innermost frame, which
+    // either finishes in turn or queues itself again with the next term or expression it needs
+    private int finishExpression(int base, int result) {
+        while (true) {
+            if (result == PENDING)
+                result = term();
+            else if (frameCount == base)
+                return result;
+            else
+                result = resumeExpression(result);
+        }
+    }
+
+    private int resumeExpression(int result) {
+        frameCount -= 4;
+        int kind = frames[frameCount];
+        int a = frames[frameCount + 1];
+        int b = frames[frameCount + 2];
+        switch (kind) {
+            case EXPRESSION:
+                if (result == AstArena.NONE) return AstArena.NONE;
+                return climb(a, result);
+            case BINARY:
+                if (result == AstArena.NONE)
+                    Error.handleError("PARSING", "Unable to parse expression");
+                return arena.add(NodeKind.BINARY, AstArena.NONE, b, a, result);
+            case PAREN:
+                skip(TokenType.CLOSE_PAREN);
+                return arena.add(NodeKind.PAREN, AstArena.NONE, 0, result);
+            case NEGATION:
+                return arena.add(NodeKind.NEGATION, AstArena.NONE, 0, result);
+            case ARRAY_ACCESS:
+                skip(TokenType.RIGHT_SQUARE);
+                return arena.add(NodeKind.ARRAY_ACCESS, a, 0, result);
+            case CALL_ARGUMENT:
+                arena.push(result);
+                if (result == AstArena.NONE)
+                    handler.NoTermParse(reported().getLine(), reported().getCol());
+                if (tryConsume(TokenType.COMMA)) {
+                    await(CALL_ARGUMENT, a, b);
+                    return PENDING;
+                } else if (tryConsume(TokenType.CLOSE_PAREN)) {
+                    return arena.addList(NodeKind.FUNC_CALL, a, 0, b);
+                }
+                handler.unexpectedTokenParameters((peekType(0) == null) ? TokenType.DEFAULT : peekType(0), reported().getLine(), reported().getCol());
+                await(CALL_ARGUMENT, a, b);
+                return PENDING;
+            case ARRAY_ELEMENT:
+                arena.push(result);
+                if (tryConsume(TokenType.RIGHT_SQUARE))
+                    return arena.addList(NodeKind.ARRAY, AstArena.NONE, 0, a);
+                skip(TokenType.COMMA);
+                await(ARRAY_ELEMENT, a);
+                return expression(0);
             default:
-                return null;
+                throw new IllegalStateException("Expression frame of kind " + kind);
         }
     }
 
-    
-    private NodeExpression parseExpression(int minimumPrecedence) { // set to 0 as default
-        NodeExpression lhs = parseTerm();
-        if (lhs == null) return null;
-        Integer level;
-        while (true) {
-            Token currentToken = peek();
-            if (currentToken == null) break;
-            level = Token.getBinaryPrecedenceLevel(currentToken.getType());
-            if (level == null || level < minimumPrecedence) break;
-            
-            Token operator = consume();
-            NodeExpression rhs = parseExpression(level + 1);
-            if (rhs == null)
-                Error.handleError("PARSING", "Unable to parse expression");
-            
-            BinaryExpression myExpression = new BinaryExpression();
-            switch (operator.getType()) {
-                case GREATER_EQ:
-                case GREATER_THAN:
-                case LESS_THAN:
-                case LESS_EQ:
-                case EQUAL:
-                case NOT_EQUAL:
-                case AND_LOGIC:
-                case OR_LOGIC:
-                case PLUS:
-                case STAR:
-                case DASH:
-                case F_SLASH:
-                case PERCENT:
-                case BITWISE_AND:
-                case BITWISE_LEFT_SHIFT:
-                case BITWISE_OR:
-                case BITWISE_RIGHT_SHIFT:
-                case BITWISE_XOR:
-                    myExpression.setOperator(operator.getType());
-                    break;
-                default:
-                    handler.unknownOperator(operator.getType(), peek().getLine(), peek().getCol());
-            }
-            
-            myExpression.setLHS(lhs);
-            myExpression.setRHS(rhs);
-            lhs = myExpression;
+    private int term() {
+        TokenType type = peekType(0);
+        if (type == null) return AstArena.NONE;
+        PrefixRule rule = PREFIX[type.ordinal()];
+        return (rule == null) ? AstArena.NONE : rule.parse(this);
+    }
+
+    private int parseIdentTerm() {
+        // Not a func call
+        TokenType nextType = peekType(1);
+        if (nextType != TokenType.OPEN_PAREN && nextType != TokenType.LEFT_SQUARE) {
+            return leaf(NodeKind.IDENT);
+        }
+        
+        // Array Access
+        int at = here();
+        if (nextType == TokenType.LEFT_SQUARE) {
+            skip(); skip();
+            await(ARRAY_ACCESS, at);
+            return expression(0);
         }
-        return lhs;
+        
+        // Is a func call
+        skip();
+        return startFuncCall(at);
+    }
+
+    private int parseArrayTerm() {
+        skip();  
+        int mark = arena.mark();
+
+        if (tryConsume(TokenType.RIGHT_SQUARE))
+            return arena.addList(NodeKind.ARRAY, AstArena.NONE, 0, mark);
+
+        await(ARRAY_ELEMENT, mark);
+        return expression(0);
+    }
+
+    // Precedence climbing, any token without a precedence ends the expression. The operator's rule
+    // gets an EXPRESSION frame under it, so climbing at this level carries on once its node is done
+    private int climb(int minimumPrecedence, int lhs) {
+        TokenType operator = peekType(0);
+        if (operator == null) return lhs;
+        int level = PRECEDENCE[operator.ordinal()];
+        if (level < minimumPrecedence) return lhs;
+
+        skip();
+        await(EXPRESSION, minimumPrecedence);
+        return INFIX[operator.ordinal()].parse(this, lhs, operator, level);
+    }
+
+    private int parseBinary(int lhs, TokenType operator, int level) {
+        await(BINARY, lhs, operator.ordinal());
+        return expression(RIGHT_ASSOCIATIVE[operator.ordinal()] ? level : level + 1);
+    }
+
+    private int unary(TokenType operator, int rhs) {
+        return arena.add(NodeKind.UNARY, AstArena.NONE, operator.ordinal(), rhs);
+    }
+
+    // Assignment to a plain variable, the identifier token doubles as the statement's position
+    private int assign(int identAt, int expression) {
+        int target = arena.add(NodeKind.IDENT, identAt, 0);
+        return arena.add(NodeKind.ASSIGN, identAt, 0, target, expression);
     }
     
-    private NodeStatement parseIterator() {
+    private int parseIterator() {
 
+        int at = here();
         Token t = consume();
-        Token ident;
-        NodeExpression expression;
-        if (t == null) return null;
+        TokenType operator;
+        int expression;
+        if (t == null) return AstArena.NONE;
 
         switch (t.getType()) {
             case IDENT:
-                ident = t;
-                if (peek() != null && peek().getType().equals(TokenType.OPEN_PAREN))
+                if (check(TokenType.OPEN_PAREN))
                     Error.handleError("PARSER", "No func call in for-loop iterator");
-                if (peek() != null && peek().getType().equals(TokenType.LEFT_SQUARE))
+                if (check(TokenType.LEFT_SQUARE))
                     Error.handleError("PARSER", "No array-access setting in for-loop initialization");
-                t = peek();
-                switch (t.getType()) {
+                operator = peekType(0);
+                switch (operator) {
                 case INCREMENT:
                 case DECREMENT:
-                    consume();
-                    expression = new UnaryExpression(t.getType());
+                    skip();
+                    expression = unary(operator, AstArena.NONE);
                     break;
                 case PLUS_EQUAL:
                 case DASH_EQUAL:
                 case STAR_EQUAL:
                 case F_SLASH_EQUAL:
-                    consume();
-                    NodeExpression rhs = parseExpression(0);
-                    expression = new UnaryExpression(t.getType(), rhs);
+                    skip();
+                    int rhs = parseExpression(0);
+                    expression = unary(operator, rhs);
                     break;
                 default:
-                    expect(TokenType.ASSIGN);
+                    skip(TokenType.ASSIGN);
                     expression = parseExpression(0);
                 }
-                return new NodeAssign(new IdentExpression(ident), expression, ident);
+                return assign(at, expression);
             default:
                 Error.handleError("PARSING", "Unrecognized iterator for a for-loop.");            
         }
-        return null;
+        return AstArena.NONE;
     }
 
-    private NodeStatement parseInitializer() {
+    private int parseInitializer() {
 
+        int at = here();
         Token t = consume();
-        Token ident;
-        NodeExpression expression;
-        if (t == null) return null;
+        TokenType operator;
+        int expression;
+        if (t == null) return AstArena.NONE;
 
         switch (t.getType()) {
             case MUT:
@@ -271,61 +503,196 @@ public class Parser {
                 boolean isConstant = true;
                 if (t.getType().equals(TokenType.MUT)) {
                     isConstant = false;
-                    t = expect(TokenType.DECLARE);
+                    at = here();
+                    skip(TokenType.DECLARE);
                 }
-                ident = expect(TokenType.IDENT);
-                expect(TokenType.ASSIGN);
+                int identAt = here();
+                skip(TokenType.IDENT);
+                skip(TokenType.ASSIGN);
                 expression = parseExpression(0);
-                return new NodeLet(ident, expression, isConstant, t);
+                return arena.add(NodeKind.LET, identAt, declaration(at, isConstant), expression);
 
             case IDENT:
-                ident = t;
-                if (peek() != null && peek().getType().equals(TokenType.OPEN_PAREN))
+                if (check(TokenType.OPEN_PAREN))
                     handler.funcCallInForLoopInit(peek().getLine(), peek().getCol());
-                if (peek() != null && peek().getType().equals(TokenType.LEFT_SQUARE))
+                if (check(TokenType.LEFT_SQUARE))
                     handler.arrayAccessInForLoopInit(peek().getLine(), peek().getCol());
-                t = peek();
-                switch (t.getType()) {
+                operator = peekType(0);
+                switch (operator) {
                 case INCREMENT:
                 case DECREMENT:
-                    consume();
-                    expression = new UnaryExpression(t.getType());
+                    skip();
+                    expression = unary(operator, AstArena.NONE);
                     break;
                 case PLUS_EQUAL:
                 case DASH_EQUAL:
                 case STAR_EQUAL:
                 case F_SLASH_EQUAL:
-                    consume();
-                    NodeExpression rhs = parseExpression(0);
-                    expression = new UnaryExpression(t.getType(), rhs);
+                    skip();
+                    int rhs = parseExpression(0);
+                    expression = unary(operator, rhs);
                 break;
                 default:
-                    expect(TokenType.ASSIGN);
+                    skip(TokenType.ASSIGN);
                     expression = parseExpression(0);
                 }
-                return new NodeAssign(new IdentExpression(ident), expression, ident);
+                return assign(at, expression);
             default:
                 handler.forLoopInit(peek().getLine(), peek().getCol());
-                return null;
+                return AstArena.NONE;
+        }
+
+    }
+
+    private int parseScope() {
+        int base = frameCount;
+        int result = scope();
+        while (true) {
+            try {
+                return finishStatements(base, result);
+            } catch (Error.Reported e) {
+                result = resynchronize(base, e);
+            }
+        }
+    }
+
+    // After an error in a body, drops the statement it happened in along with the frames it left. The
+    // statement is skipped again from its start, up to the ';' or closing '}' ending it, and parsing goes
+    // on inside the innermost open block. The error goes on up if there's no such block, or another
+    // function starts first
+    private int resynchronize(int base, Error.Reported error) {
+        int top = frameCount;
+        while (top > base && frames[top - 4] != BLOCK)
+            top -= 4;
+        if (top == base)
+            throw error;
+        frameCount = top;
+        arena.reset(frames[top - 2]);
+        tokens.seek(frames[top - 1]);
+
+        TokenType first = peekType(0);
+        int braces = 0;
+        int parens = 0; // Only a for loop's, the ';' in its header don't end it
+        boolean ended = false;
+        while (!ended) {
+            TokenType type = peekType(0);
+            if (type == null || type == TokenType.FN)
+                throw error;
+            if (type == TokenType.CLOSE_CURLY && braces == 0)
+                break;
+            skip();
+            switch (type) {
+                case OPEN_CURLY:
+                    braces++;
+                    break;
+                case CLOSE_CURLY:
+                    // A body ends the statement, unless an else or a do's condition comes after it
+                    TokenType next = peekType(0);
+                    ended = --braces == 0 && next != TokenType.ELSE && next != TokenType.ELIF
+                        && !(first == TokenType.DO && next == TokenType.WHILE);
+                    break;
+                case OPEN_PAREN:
+                    if (first == TokenType.FOR) parens++;
+                    break;
+                case CLOSE_PAREN:
+                    if (first == TokenType.FOR) parens--;
+                    break;
+                case SEMI:
+                    ended = braces == 0 && parens <= 0;
+                    break;
+                default:
+                    break;
+            }
+        }
+        frames[top - 1] = here();
+        return PENDING;
+    }
+
+    // Same as finishExpression for statement frames. Expressions inside statements are parsed whole as
+    // they come up, only scopes nest through here
+    private int finishStatements(int base, int result) {
+        while (true) {
+            if (result == PENDING)
+                result = statement();
+            else if (frameCount == base)
+                return result;
+            else
+                result = resumeStatement(result);
         }
+    }
 
+    private int resumeStatement(int result) {
+        frameCount -= 4;
+        int kind = frames[frameCount];
+        int a = frames[frameCount + 1];
+        int b = frames[frameCount + 2];
+        int c = frames[frameCount + 3];
+        switch (kind) {
+            case BLOCK:
+                if (result != AstArena.NONE) {
+                    arena.push(result);
+                    await(BLOCK, a, arena.mark(), here());
+                    return PENDING;
+                }
+                // Still open while the brace is checked, so an error here is recovered from inside the block
+                await(BLOCK, a, b, c);
+                skip(TokenType.CLOSE_CURLY);
+                frameCount -= 4;
+                return arena.addList(NodeKind.SCOPE, AstArena.NONE, 0, a);
+            case SINGLE:
+                arena.push(result);
+                return arena.addList(NodeKind.SCOPE, AstArena.NONE, 0, a);
+            case IF:
+                await(IF_PREDICATE, a, result);
+                return predicate();
+            case IF_PREDICATE:
+                return arena.add(NodeKind.IF, AstArena.NONE, 0, a, b, result);
+            case ELIF:
+                await(ELIF_PREDICATE, a, result);
+                return predicate();
+            case ELIF_PREDICATE:
+                return arena.add(NodeKind.ELIF, AstArena.NONE, 0, a, b, result);
+            case ELSE:
+                return arena.add(NodeKind.ELSE, AstArena.NONE, 0, result);
+            case WHILE:
+                return arena.add(NodeKind.WHILE, AstArena.NONE, 0, a, result);
+            case FOR:
+                return arena.add(NodeKind.FOR, AstArena.NONE, 0, a, b, c, result);
+            case LOOP:
+                return arena.add(NodeKind.LOOP, a, AstArena.UNSET, result);
+            case DO:
+                skip(TokenType.WHILE);
+                checkParens("do-while");
+                int expression = parseExpression(0);
+                skip(TokenType.SEMI);
+                return arena.add(NodeKind.DO, AstArena.NONE, 0, expression, result);
+            case BRACED:
+                skip(TokenType.CLOSE_CURLY);
+                return result;
+            default:
+                throw new IllegalStateException("Statement frame of kind " + kind);
+        }
     }
 
-    private NodeStatement parseStatement() {
+    // Statements with a body queue a frame for it and return the start of its scope
+    private int statement() {
         
+        TokenType type = peekType(0);
+        if (type == null || !STATEMENT_STARTS.contains(type)) return AstArena.NONE;
+        int at = here();
         Token t = consume();
-        if (t == null) return null;
-        NodeExpression expression;
-        Token ident;
-        NodeScope scope;
+        TokenType operator;
+        int expression;
+        if (recovering)
+            Error.locate(t.getLine(), t.getCol());
         
         switch (t.getType()) {
             case RETURN:
-                if (tryConsume(TokenType.SEMI) != null)
-                    return new NodeReturn(t);
+                if (tryConsume(TokenType.SEMI))
+                    return arena.add(NodeKind.RETURN, at, 0, AstArena.NONE);
                 expression = parseExpression(0);
-                expect(TokenType.SEMI);
-                return new NodeReturn(expression, t);
+                skip(TokenType.SEMI);
+                return arena.add(NodeKind.RETURN, at, 0, expression);
             
             case MUT:
             case DECLARE:
@@ -335,197 +702,178 @@ public class Parser {
                 boolean isConstant = true;
                 if (t.getType().equals(TokenType.MUT)) {
                     isConstant = false;
+                    at = here();
                     t = expect(TokenType.DECLARE, TokenType.ARR);
                 }
 
+                // The element type is read back from the token after '<', see AstArena.declaredType
                 if (t.getType().equals(TokenType.ARR)) {
-                    expect(TokenType.LESS_THAN);
-                    Token inner = expect(TokenType.DECLARE);
-                    t.setValue(inner.getValue());
-                    expect(TokenType.GREATER_THAN);
+                    skip(TokenType.LESS_THAN);
+                    skip(TokenType.DECLARE);
+                    skip(TokenType.GREATER_THAN);
                 }
 
-                ident = expect(TokenType.IDENT);
-                expect(TokenType.ASSIGN);
-                if (tryConsume(TokenType.IN) != null) {
+                int identAt = here();
+                skip(TokenType.IDENT);
+                skip(TokenType.ASSIGN);
+                if (tryConsume(TokenType.IN)) {
                     if (t.getType().equals(TokenType.ARR))
                         handler.scanArray(peek().getLine(), peek().getCol());
-                    String value = expect(TokenType.STRING_LIT).getValue();
-                    expect(TokenType.SEMI);
-                    return new NodeScan(value, ident, isConstant, t);
+                    skip(TokenType.STRING_LIT);
+                    skip(TokenType.SEMI);
+                    return arena.add(NodeKind.SCAN, identAt, declaration(at, isConstant));
                 }
                 expression = parseExpression(0);
-                expect(TokenType.SEMI);
-                return new NodeLet(ident, expression, isConstant, t);
+                skip(TokenType.SEMI);
+                return arena.add(NodeKind.LET, identAt, declaration(at, isConstant), expression);
             
             case IF:
                 checkParens("if");
                 expression = parseExpression(0);
                 checkCurly("if");
-                return new NodeIf(expression, parseScope(), parseIfPred());
+                await(IF, expression);
+                return scope();
             
             case WHILE:
                 checkParens("while");
                 expression = parseExpression(0);
                 checkCurly("while");
-                return new NodeWhile(expression, parseScope());
+                await(WHILE, expression);
+                return scope();
             
             case FOR:
-                expect(TokenType.OPEN_PAREN);
-                NodeStatement initializer;
-                if (tryConsume(TokenType.SEMI) != null) {
-                    initializer = null;
+                skip(TokenType.OPEN_PAREN);
+                int initializer;
+                if (tryConsume(TokenType.SEMI)) {
+                    initializer = AstArena.NONE;
                 } else {
                     initializer = parseInitializer();
-                    expect(TokenType.SEMI);
+                    skip(TokenType.SEMI);
                 }
-                if (tryConsume(TokenType.SEMI) != null) {
-                    expression = null;
+                if (tryConsume(TokenType.SEMI)) {
+                    expression = AstArena.NONE;
                 } else {
                     expression = parseExpression(0);
-                    expect(TokenType.SEMI);
+                    skip(TokenType.SEMI);
                 }
-                NodeStatement iterator;
-                if (tryConsume(TokenType.CLOSE_PAREN) != null) {
-                    iterator = null;
+                int iterator;
+                if (tryConsume(TokenType.CLOSE_PAREN)) {
+                    iterator = AstArena.NONE;
                 } else {
                     iterator = parseIterator();
-                    expect(TokenType.CLOSE_PAREN);
+                    skip(TokenType.CLOSE_PAREN);
                 }
-                scope = parseScope();
-                return new NodeFor(initializer, expression, iterator, scope);
+                await(FOR, initializer, expression, iterator);
+                return scope();
 
             case LOOP:
-                if (peek() != null && peek().getType().equals(TokenType.INT_LIT)) {
-                    String count = peek().getValue();
-                    consume();
-                    return new NodeLoop(parseScope(), count);
+                if (check(TokenType.INT_LIT)) {
+                    int countAt = here();
+                    skip();
+                    await(LOOP, countAt);
+                    return scope();
                 }
-                return new NodeLoop(parseScope());
+                await(LOOP, AstArena.NONE);
+                return scope();
             
             case DO:
                 checkCurly("do-while");
-                scope = parseScope();
-                expect(TokenType.WHILE);
-                checkParens("do-while");
-                expression = parseExpression(0);
-                expect(TokenType.SEMI);
-                return new NodeDo(expression, scope);
+                await(DO);
+                return scope();
             
             case CONTINUE:
-                expect(TokenType.SEMI);
-                return new NodeContinue();
+                skip(TokenType.SEMI);
+                return arena.add(NodeKind.CONTINUE, at, 0);
             
             case BREAK:
-                expect(TokenType.SEMI);
-                return new NodeBreak();
+                skip(TokenType.SEMI);
+                return arena.add(NodeKind.BREAK, at, 0);
             
             case OUT:
-                NodeTerm token = parseTerm();
-                expect(TokenType.SEMI);
-                return new NodePrint(token);
+                int token = parseTerm();
+                skip(TokenType.SEMI);
+                return arena.add(NodeKind.PRINT, AstArena.NONE, 0, token);
             
             case OPEN_CURLY:
-                scope = parseScope();
-                expect(TokenType.CLOSE_CURLY);
-                return scope;
+                await(BRACED);
+                return scope();
             
             case IDENT:
-                ident = t;
                 boolean isArrayAccess = false;
-                if (peek() != null && peek().getType().equals(TokenType.OPEN_PAREN)) {
+                if (check(TokenType.OPEN_PAREN)) {
                     // Func call
-                    this.iterator--;
-                    FuncCallNode x =  handleFuncCall();
-                    x.setIsolated();
-                    expect(TokenType.SEMI);
+                    int x = finishExpression(frameCount, startFuncCall(at));
+                    arena.setData(x, 1); // Isolated
+                    skip(TokenType.SEMI);
                     return x;
                 }
-                NodeExpression index = null;
-                if (peek() != null && peek().getType().equals(TokenType.LEFT_SQUARE)) {
+                int index = AstArena.NONE;
+                if (check(TokenType.LEFT_SQUARE)) {
                     isArrayAccess = true;
-                    consume();
+                    skip();
                     index = parseExpression(0);
-                    expect(TokenType.RIGHT_SQUARE);
+                    skip(TokenType.RIGHT_SQUARE);
                 }
                 
-                t = peek();
-                switch (t.getType()) {
+                operator = peekType(0);
+                switch (operator) {
                 case INCREMENT:
                 case DECREMENT:
-                    consume();
-                    expression = new UnaryExpression(t.getType());
+                    skip();
+                    expression = unary(operator, AstArena.NONE);
                     break;
                 case PLUS_EQUAL:
                 case DASH_EQUAL:
                 case STAR_EQUAL:
                 case F_SLASH_EQUAL:
-                    consume();
-                    NodeExpression rhs = parseExpression(0);
-                    expression = new UnaryExpression(t.getType(), rhs);
+                    skip();
+                    int rhs = parseExpression(0);
+                    expression = unary(operator, rhs);
                 break;
                 default:
-                    expect(TokenType.ASSIGN);
+                    skip(TokenType.ASSIGN);
                     expression = parseExpression(0);
                 }
 
-                expect(TokenType.SEMI);
+                skip(TokenType.SEMI);
                 if (!isArrayAccess)
-                    return new NodeAssign(new IdentExpression(ident), expression, ident);
-                else 
-                    return new NodeAssign(new ArrayAccess(ident, index), expression, ident);
+                    return assign(at, expression);
+                int access = arena.add(NodeKind.ARRAY_ACCESS, at, 0, index);
+                return arena.add(NodeKind.ASSIGN, at, 0, access, expression);
             default:
-                this.iterator--; // decrement from original consumption at start of method
-                return null;
+                return AstArena.NONE;
         }
     }
     
-    private FuncCallNode handleFuncCall() {
-        Token funcName = consume();
-        expect(TokenType.OPEN_PAREN);
-        if (tryConsume(TokenType.CLOSE_PAREN) != null) {
-            return new FuncCallNode(funcName, new ArrayList<NodeTerm>());
-        }
-
-        ArrayList<NodeTerm> parameters = new ArrayList<>();
-        while (true) {
-            NodeTerm term = parseTerm();
-            parameters.add(term);
-            if (term == null)
-                handler.NoTermParse(peek().getLine(), peek().getCol());
-            if (tryConsume(TokenType.COMMA) != null) {
-                continue;
-            } else if (tryConsume(TokenType.CLOSE_PAREN) != null) {
-                return new FuncCallNode(funcName, parameters);
-            } else {
-                handler.unexpectedTokenParameters(peek().getType(), peek().getLine(), peek().getCol());
-            }
+    // Called with the name already consumed, nameAt is its index. Each argument is a term
+    private int startFuncCall(int nameAt) {
+        skip(TokenType.OPEN_PAREN);
+        int mark = arena.mark();
+        if (tryConsume(TokenType.CLOSE_PAREN)) {
+            return arena.addList(NodeKind.FUNC_CALL, nameAt, 0, mark);
         }
+        await(CALL_ARGUMENT, nameAt, mark);
+        return PENDING;
     }
 
-    private NodeScope parseScope() {
-        NodeScope scope = new NodeScope();
-        if (tryConsume(TokenType.OPEN_CURLY) != null) {
-            NodeStatement statement = parseStatement();
-            while (statement != null) {
-                scope.addStatement(statement);
-                statement = parseStatement();
-            }
-            expect(TokenType.CLOSE_CURLY);
-        } else {
-            NodeStatement statement = parseStatement();
-            scope.addStatement(statement);
-        }
-        return scope;
+    // A scope is either everything up to the matching brace or a single statement
+    private int scope() {
+        int mark = arena.mark();
+        if (tryConsume(TokenType.OPEN_CURLY))
+            await(BLOCK, mark, mark, here());
+        else
+            await(SINGLE, mark);
+        return PENDING;
     }
 
-    private NodeIfPredicate parseIfPred() {
-        Token currentToken = peek();
-        if (currentToken != null && currentToken.getType().equals(TokenType.ELIF)) {
-            consume();
+    // The elif or else after an if's body, its own body comes next
+    private int predicate() {
+        TokenType current = peekType(0);
+        if (current == TokenType.ELIF) {
+            skip();
             checkParens("else if");
-            NodeExpression expression = parseExpression(0);
-            if (expression == null) {
+            int expression = parseExpression(0);
+            if (expression == AstArena.NONE) {
                 if (peek() == null) {
                     Error.handleError("Parsing", "Unable to parse expression");
                 } else {
@@ -533,71 +881,100 @@ public class Parser {
                 }
             }
             checkCurly("else if");
-            return new NodeIfPredicateElif(expression, parseScope(), parseIfPred());
-        } else if (currentToken != null && currentToken.getType().equals(TokenType.ELSE)) {
-            consume();
+            await(ELIF, expression);
+            return scope();
+        } else if (current == TokenType.ELSE) {
+            skip();
             checkCurly("else");
-            return new NodeIfPredicateElse(parseScope());
+            await(ELSE);
+            return scope();
         }
-        return null;
+        return AstArena.NONE;
     }
 
     private Token expect(TokenType type) {
-        Token currentToken = peek();
-        if (currentToken == null)
-            handler.receivedWrongToken(type, TokenType.DEFAULT, peek().getLine(), peek().getCol());
-        if (!currentToken.getType().equals(type))
-            handler.receivedWrongToken(type, currentToken.getType(), peek().getLine(), peek().getCol());
-        this.iterator++;
-        return currentToken;
+        checkExpected(type);
+        return consume();
     }
 
     private Token expect(TokenType typeOne, TokenType typeTwo) {
-        Token currentToken = peek();
-        if (currentToken == null)
-            handler.receivedWrongToken(typeOne, TokenType.DEFAULT, peek().getLine(), peek().getCol());
-        if (!(currentToken.getType().equals(typeOne) || currentToken.getType().equals(typeTwo)))
-            handler.receivedWrongToken(typeOne, currentToken.getType(), peek().getLine(), peek().getCol());
-        this.iterator++;
-        return currentToken;
+        TokenType current = peekType(0);
+        if (current == null)
+            handler.receivedWrongToken(typeOne, TokenType.DEFAULT, reported().getLine(), reported().getCol());
+        if (!(current.equals(typeOne) || current.equals(typeTwo)))
+            handler.receivedWrongToken(typeOne, current, peek().getLine(), peek().getCol());
+        return consume();
+    }
+
+    // Same as expect, for tokens whose contents are never looked at
+    private void skip(TokenType type) {
+        checkExpected(type);
+        skip();
+    }
+
+    private void checkExpected(TokenType type) {
+        TokenType current = peekType(0);
+        if (current == null)
+            handler.receivedWrongToken(type, TokenType.DEFAULT, reported().getLine(), reported().getCol());
+        if (!current.equals(type))
+            handler.receivedWrongToken(type, current, peek().getLine(), peek().getCol());
+    }
+
+    // Index of the next token in the buffer, which is what arena nodes record
+    private int here() {
+        return this.tokens.position();
     }
 
     private Token consume() {
-        if (this.iterator >= tokens.size())
-            return null;
-        Token c = this.tokens.get(this.iterator);
-        this.iterator++;
-        return c;
+        return this.tokens.consume();
+    }
+
+    private void skip() {
+        this.tokens.skip();
+    }
+
+    private TokenType peekType(int offset) {
+        return this.tokens.peekType(offset);
+    }
+
+    private boolean check(TokenType type) {
+        return peekType(0) == type;
+    }
+
+    // Token an error about the next one is reported at. Past the end of the input there isn't one, so
+    // while errors are being collected the last token stands in for it
+    private Token reported() {
+        Token next = peek();
+        if (next == null && recovering && tokens.size() > 0)
+            return tokens.token(tokens.size() - 1);
+        return next;
     }
 
     private Token peek() {
-        if (this.iterator >= tokens.size())
-            return null;
-        return this.tokens.get(this.iterator);
+        return this.tokens.peek(0);
     }
 
     private Token peek(int var) {
-        if (this.iterator + var < 0 || this.iterator + var >= tokens.size())
-            return null;
-        return this.tokens.get(this.iterator + var);
+        return this.tokens.peek(var);
     }
 
-    private Token tryConsume(TokenType type) {
-        if (peek() != null && peek().getType().equals(type))
-            return consume();
-        return null;
+    private boolean tryConsume(TokenType type) {
+        if (!check(type))
+            return false;
+        skip();
+        return true;
     }
 
     private void checkParens(String area) {
         if (configSettings.containsKey("MANDATE-BRACKETS") && configSettings.get("MANDATE-BRACKETS").equals("true")) {
-            if (peek() != null && !peek().getType().equals(TokenType.OPEN_PAREN))
+            if (peekType(0) != null && !check(TokenType.OPEN_PAREN))
                 Error.minorError("CONFIG-SPECIFIC", "Missing () around " + area + " statement\n    line: " + peek(0).getLine() + ", col: " + peek(0).getCol());
         }
     }
 
     private void checkCurly(String area) {
         if (configSettings.containsKey("MANDATE-BRACKETS") && configSettings.get("MANDATE-BRACKETS").equals("true")) {
-            if (peek() != null && !peek().getType().equals(TokenType.OPEN_PAREN))
+            if (peekType(0) != null && !check(TokenType.OPEN_PAREN))
                 Error.minorError("CONFIG-SPECIFIC", "Missing {} around " + area + " statement\n    line: " + peek(0).getLine() + ", col: " + peek(0).getCol());
         }
     }
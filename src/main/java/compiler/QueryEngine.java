@@ -0,0 +1,187 @@
+package compiler;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeFunction;
+import compiler.nodes.NodeKind;
+import compiler.nodes.NodeProgram;
+
+// Compiles successive versions of one source, remembering what each step worked out so a new version only
+// redoes what its changes reach. Every step is a query keyed on a hash of what it reads:
+//   the outline of the file, every header and where each function is, on the file's bytes
+//   a function's tokens and tree on its own text
+//   a function's check, and the C generated after it, on its tree and the signatures of the functions it calls
+// An edit inside one body re-lexes, re-parses and re-checks only that function, and its callers are checked
+// again only when its signature changes. Printed diagnostics carry positions, so a function whose text has
+// moved is redone if its results printed anything. Signatures are read off the outline, and main and
+// duplicate functions are checked, every version, both cheap next to the bodies
+public class QueryEngine {
+
+    private final HashMap<String, String> configSettings;
+    private final Interner symbols = new Interner(); // Shared by every version, so symbol ids stay put
+    private final MessageDigest digest;
+
+    private String sourceKey = null;
+    private Outline outline = null;
+    private final HashMap<String, FunctionQueries> functions = new HashMap<>(); // By hash of their text
+
+    // What the last compile had to redo
+    private int parsed = 0;
+    private int checked = 0;
+
+    // Everything worked out for one function's text
+    private static final class FunctionQueries {
+        private final int line; private final int col; // Where the text started, its diagnostics say so
+        private NodeProgram tree = null;
+        private Error.Captured parsing;
+        private int[] callees = new int[0]; // Symbols of every function it calls
+        private String checkedAgainst = null; // The callees' signatures when it was last checked
+        private Error.Captured checking = null;
+        private String c = null;
+
+        FunctionQueries(int line, int col) {
+            this.line = line; this.col = col;
+        }
+
+        boolean movedFrom(int line, int col) {
+            return this.line != line || this.col != col;
+        }
+
+        boolean isQuiet() {
+            return parsing.isQuiet() && checking != null && checking.isQuiet();
+        }
+    }
+
+    public QueryEngine(HashMap<String, String> configSettings) {
+        this.configSettings = configSettings;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getParsed() {
+        return this.parsed;
+    }
+
+    public int getChecked() {
+        return this.checked;
+    }
+
+    public int size() {
+        return (outline == null) ? 0 : outline.size();
+    }
+
+    // C for this version of the source. Diagnostics come out as a compile from scratch would print them,
+    // and an error exits as usual, so run it inside Error.capture to carry on to the next version
+    public String compile(SourceFile source, Error handler) {
+        this.parsed = 0;
+        this.checked = 0;
+        String key = hash(source, 0, source.length());
+        if (!key.equals(sourceKey)) {
+            sourceKey = null;
+            outline = Outline.of(source, handler, symbols, configSettings);
+            sourceKey = key;
+        }
+
+        NodeProgram signatures = outline.getSignatures();
+        Verifier verifier = new Verifier(signatures, symbols, configSettings, handler);
+        verifier.verifySignatures();
+        Generator generator = new Generator(signatures);
+
+        HashSet<String> live = new HashSet<>();
+        StringBuilder contents = new StringBuilder(Generator.PRELUDE);
+        int main = outline.mainFunction();
+        for (int i = 0; i < outline.size(); i++) {
+            if (i != main)
+                contents.append(compileFunction(source, i, handler, verifier, generator, live));
+        }
+        contents.append(compileFunction(source, main, handler, verifier, generator, live));
+        functions.keySet().retainAll(live);
+        return contents.toString();
+    }
+
+    private String compileFunction(SourceFile source, int i, Error handler, Verifier verifier, Generator generator,
+            HashSet<String> live) {
+        int start = outline.start(i);
+        String key = hash(source, start, outline.end(i));
+        LineIndex lines = outline.getLines();
+        int line = lines.lineOf(start);
+        int col = lines.columnOf(line, start);
+
+        FunctionQueries function = functions.get(key);
+        if (function != null && function.movedFrom(line, col)
+                && !(function.isQuiet() && calleeSignatures(function, verifier).equals(function.checkedAgainst)))
+            function = null;
+        if (function == null) {
+            function = parse(i, line, col, handler);
+            functions.put(key, function);
+        }
+        live.add(key);
+        function.parsing.replay();
+
+        String against = calleeSignatures(function, verifier);
+        if (!against.equals(function.checkedAgainst)) {
+            NodeProgram tree = function.tree;
+            function.checking = Error.capture(() -> {
+                for (NodeFunction f: tree.getNodeFunctions())
+                    verifier.verifyFunction(f);
+            });
+            function.checkedAgainst = against;
+            function.c = null;
+            checked++;
+        }
+        function.checking.replay();
+
+        if (function.c == null) {
+            StringBuilder c = new StringBuilder();
+            for (NodeFunction f: function.tree.getNodeFunctions())
+                c.append(generator.generateFunction(f));
+            function.c = c.toString();
+        }
+        return function.c;
+    }
+
+    private FunctionQueries parse(int i, int line, int col, Error handler) {
+        FunctionQueries function = new FunctionQueries(line, col);
+        Parser parser = new Parser(outline.lex(i), configSettings, handler);
+        function.parsing = Error.capture(() -> function.tree = parser.parseProgram());
+        if (function.tree != null)
+            function.callees = callees(function.tree.getArena());
+        parsed++;
+        return function;
+    }
+
+    private static int[] callees(AstArena arena) {
+        int[] found = new int[8];
+        int count = 0;
+        for (int node = 0; node < arena.size(); node++) {
+            if (arena.kind(node) != NodeKind.FUNC_CALL)
+                continue;
+            if (count == found.length)
+                found = Arrays.copyOf(found, count * 2);
+            found[count++] = arena.symbol(node);
+        }
+        return Arrays.stream(found, 0, count).distinct().toArray();
+    }
+
+    private static String calleeSignatures(FunctionQueries function, Verifier verifier) {
+        StringBuilder against = new StringBuilder();
+        for (int symbol: function.callees) {
+            FunctionSignature signature = verifier.getSignature(symbol);
+            against.append((signature == null) ? "none" : signature.toString()).append(';');
+        }
+        return against.toString();
+    }
+
+    private String hash(SourceFile source, int start, int end) {
+        source.digest(digest, start, end);
+        return AstCache.hex(digest.digest());
+    }
+
+}
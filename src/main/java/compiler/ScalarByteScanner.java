@@ -0,0 +1,23 @@
+package compiler;
+
+public class ScalarByteScanner implements ByteScanner {
+
+    public int find(SourceFile source, int from, int to, int stop) {
+        for (int i = from; i < to; i++) {
+            int b = source.byteAt(i);
+            if (b == stop || b >= 0x80)
+                return i;
+        }
+        return to;
+    }
+
+    public int skipBlanks(SourceFile source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int b = source.byteAt(i);
+            if (b != ' ' && b != '\t')
+                return i;
+        }
+        return to;
+    }
+
+}
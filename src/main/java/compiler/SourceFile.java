@@ -0,0 +1,111 @@
+package compiler;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+public class SourceFile {
+
+    // Raw UTF-8 bytes of the program, either memory-mapped or wrapping a heap array
+    private final ByteBuffer bytes;
+    private final int length;
+
+    private SourceFile(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.length = bytes.limit();
+    }
+
+    public static SourceFile map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Source file is too large to map: " + path);
+            return new SourceFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    // A copy of the file on the heap, for a source that has to stay as it was after the file changes
+    public static SourceFile read(Path path) throws IOException {
+        return new SourceFile(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    public static SourceFile fromString(String contents) {
+        return new SourceFile(ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // New source with 'removed' bytes at offset replaced by the given text
+    public SourceFile replace(int offset, int removed, String inserted) {
+        byte[] text = inserted.getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[this.length - removed + text.length];
+        copy(0, buffer, 0, offset);
+        System.arraycopy(text, 0, buffer, offset, text.length);
+        copy(offset + removed, buffer, offset + text.length, this.length - offset - removed);
+        return new SourceFile(ByteBuffer.wrap(buffer));
+    }
+
+    public int length() {
+        return this.length;
+    }
+
+    // Underlying bytes for bulk scanning, only read with absolute indexes
+    ByteBuffer buffer() {
+        return this.bytes;
+    }
+
+    public int byteAt(int i) {
+        return this.bytes.get(i) & 0xFF;
+    }
+
+    public static boolean isContinuation(int b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    // Number of bytes in the UTF-8 sequence starting with the given lead byte
+    public static int sequenceLength(int lead) {
+        if (lead < 0x80) return 1;
+        if (lead >= 0xF0) return 4;
+        if (lead >= 0xE0) return 3;
+        if (lead >= 0xC0) return 2;
+        return 1;
+    }
+
+    // Only used off the fast path, once a non-ASCII byte has been seen
+    public int codePointAt(int i) {
+        int n = Math.min(sequenceLength(byteAt(i)), this.length - i);
+        return slice(i, i + n).codePointAt(0);
+    }
+
+    public String slice(int start, int end) {
+        byte[] buffer = new byte[end - start];
+        copy(start, buffer, 0, buffer.length);
+        return decode(buffer);
+    }
+
+    // Bulk copy of count bytes from start. It goes through a duplicate so the shared buffer's position
+    // never moves, and other threads can keep reading it
+    private void copy(int start, byte[] buffer, int at, int count) {
+        this.bytes.duplicate().position(start).get(buffer, at, count);
+    }
+
+    // Text of raw source bytes, plain ASCII skips the UTF-8 decoder
+    static String decode(byte[] buffer) {
+        for (byte b: buffer) {
+            if (b < 0)
+                return new String(buffer, StandardCharsets.UTF_8);
+        }
+        return new String(buffer, StandardCharsets.ISO_8859_1);
+    }
+
+    public void digest(MessageDigest digest) {
+        digest(digest, 0, this.length);
+    }
+
+    public void digest(MessageDigest digest, int start, int end) {
+        digest.update(this.bytes.duplicate().position(0).limit(end).position(start));
+    }
+
+}
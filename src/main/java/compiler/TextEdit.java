@@ -0,0 +1,42 @@
+package compiler;
+import java.nio.charset.StandardCharsets;
+
+// Replacement of a byte range of the source, as sent by an editor or file watcher
+public class TextEdit {
+
+    private final int offset;
+    private final int removed;
+    private final String inserted;
+
+    public TextEdit(int offset, int removed, String inserted) {
+        this.offset = offset;
+        this.removed = removed;
+        this.inserted = inserted;
+    }
+
+    public int getOffset() {
+        return this.offset;
+    }
+
+    public int getRemoved() {
+        return this.removed;
+    }
+
+    public String getInserted() {
+        return this.inserted;
+    }
+
+    public int insertedLength() {
+        return this.inserted.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // How far everything after the edit moves
+    public int delta() {
+        return insertedLength() - this.removed;
+    }
+
+    public SourceFile apply(SourceFile source) {
+        return source.replace(this.offset, this.removed, this.inserted);
+    }
+
+}
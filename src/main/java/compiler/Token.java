@@ -5,7 +5,12 @@ public class Token {
     
     private final TokenType type;
     private String value = null;
-    private final Integer line; private final Integer col;
+    private final int line; private final int col;
+    private int symbol = -1; // Interned id, only set on identifiers
+
+    // Span into the lexer's source, the value is only materialized when asked for
+    private SourceFile source = null;
+    private int start; private int length;
     
     public Token(TokenType type, int line, int col) {
         this.type = type;
@@ -19,40 +24,21 @@ public class Token {
         this.line = line;
         this.col = col;
     }
-    public static Integer getBinaryPrecedenceLevel(TokenType type) {
-        // https://www.tutorialspoint.com/cprogramming/c_operators_precedence.htm
-        switch (type) {
-            case OR_LOGIC:
-                return 0;
-            case AND_LOGIC:
-                return 1;
-            case BITWISE_OR:
-                return 2;
-            case BITWISE_XOR:
-                return 3;
-            case BITWISE_AND:
-                return 4;
-            case EQUAL:
-            case NOT_EQUAL:
-                return 5;
-            case LESS_THAN:
-            case LESS_EQ:
-            case GREATER_EQ:
-            case GREATER_THAN:
-                return 6;
-            case BITWISE_LEFT_SHIFT:
-            case BITWISE_RIGHT_SHIFT:
-                return 7;
-            case PLUS:
-            case DASH:
-                return 8;
-            case STAR:
-            case F_SLASH:
-            case PERCENT:
-                return 9;
-            default:
-                return -1;
-        }
+    public Token(TokenType type, String value, int symbol, int line, int col) {
+        this.type = type;
+        this.value = value;
+        this.symbol = symbol;
+        this.line = line;
+        this.col = col;
+    }
+
+    public Token(TokenType type, SourceFile source, int start, int length, int line, int col) {
+        this.type = type;
+        this.source = source;
+        this.start = start;
+        this.length = length;
+        this.line = line;
+        this.col = col;
     }
 
     public Integer getLine() {
@@ -65,7 +51,7 @@ public class Token {
 
     @Override
     public String toString() {
-        if (value == null)
+        if (getValue() == null)
             return String.format("{type: %s (%s, %s)}", this.getType(), this.getLine().toString(), this.getCol().toString());
         return String.format("{type: %s, val: %s (%s, %s)}", this.getType(), this.getValue(), this.getLine().toString(), this.getCol().toString());
     }
@@ -73,6 +59,11 @@ public class Token {
 
     public void setValue(String v) {
         this.value = v;
+        this.source = null;
+    }
+
+    public int getSymbol() {
+        return this.symbol;
     }
 
     public TokenType getType() {
@@ -80,6 +71,10 @@ public class Token {
     }
 
     public String getValue() {
+        if (this.value == null && this.source != null) {
+            this.value = this.source.slice(this.start, this.start + this.length);
+            this.source = null;
+        }
         return this.value;
     }
 
@@ -0,0 +1,260 @@
+package compiler;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Struct-of-arrays token list, one slot per token instead of one object per token.
+// Line and column aren't stored, they're recovered from the token's offset through the lexer's line index
+public class TokenBuffer {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final SourceFile source;
+    private final Interner symbols;
+
+    private byte[] kinds = new byte[256];
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    private int[] aux = new int[256]; // Symbol id for identifiers, keyword slot for keyword values, else -1
+    private int size = 0;
+
+    // Line starts as the lexer counted them, which skips newlines inside block comments
+    private final LineIndex lines;
+
+    private int cursor = 0;
+    private Lexer pending = null; // Lexes the rest as the cursor asks for it, null once every token is in
+
+    public TokenBuffer(SourceFile source, Interner symbols, LineIndex lines) {
+        this.source = source;
+        this.symbols = symbols;
+        this.lines = lines;
+    }
+
+    // A second cursor over the same tokens, for parsing part of them on another thread. Only valid once lexing is done
+    TokenBuffer reader(int position) {
+        TokenBuffer reader = new TokenBuffer(source, symbols, lines);
+        reader.kinds = kinds; reader.starts = starts; reader.ends = ends; reader.aux = aux;
+        reader.size = size;
+        reader.cursor = position;
+        return reader;
+    }
+
+    void add(TokenType type, int start, int end, int extra) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            aux = Arrays.copyOf(aux, size * 2);
+        }
+        kinds[size] = (byte) type.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        aux[size] = extra;
+        size++;
+    }
+
+    // Leaves the rest of the tokens to lexer, scanned one at a time as the cursor reaches them
+    void pullFrom(Lexer lexer) {
+        this.pending = lexer;
+    }
+
+    // Whether there's a token i, lexing up to it if it hasn't been yet
+    private boolean has(int i) {
+        while (i >= size && pending != null) {
+            if (!pending.pullInto(this))
+                pending = null;
+        }
+        return i < size;
+    }
+
+    // Drops every token from 'size' on
+    void truncate(int size) {
+        this.size = size;
+    }
+
+    // Copies the first 'count' tokens of another buffer
+    void copyPrefix(TokenBuffer from, int count) {
+        for (int i = 0; i < count; i++)
+            add(from.type(i), from.starts[i], from.ends[i], from.aux[i]);
+    }
+
+    // Appends another buffer's tokens from 'first' onwards, moved by delta
+    void appendShifted(TokenBuffer from, int first, int delta) {
+        for (int i = first; i < from.size; i++)
+            add(from.type(i), from.starts[i] + delta, from.ends[i] + delta, from.aux[i]);
+    }
+
+    // Appends a chunk lexed separately, remapping its identifiers onto this buffer's symbol ids
+    void append(TokenBuffer chunk, int[] symbolMap) {
+        for (int i = 0; i < chunk.size; i++) {
+            int extra = chunk.aux[i];
+            if (chunk.kinds[i] == TokenType.IDENT.ordinal())
+                extra = symbolMap[extra];
+            add(chunk.type(i), chunk.starts[i], chunk.ends[i], extra);
+        }
+    }
+
+    // Kinds as they are, starts as gaps from the previous token and ends as lengths, which are mostly one byte each
+    public void writeTo(AstCache.Output out) {
+        out.writeVarInt(size);
+        out.writeBytes(kinds, size);
+        out.writeDeltas(starts, size);
+        for (int i = 0; i < size; i++)
+            out.writeVarInt(ends[i] - starts[i]);
+        for (int i = 0; i < size; i++)
+            out.writeVarInt(aux[i]);
+    }
+
+    public static TokenBuffer readFrom(AstCache.Input in, SourceFile source, Interner symbols, LineIndex lines) {
+        TokenBuffer tokens = new TokenBuffer(source, symbols, lines);
+        int size = in.readCount();
+        tokens.kinds = in.readBytes();
+        tokens.starts = in.readDeltas(size);
+        tokens.ends = new int[size];
+        for (int i = 0; i < size; i++)
+            tokens.ends[i] = tokens.starts[i] + in.readVarInt();
+        tokens.aux = new int[size];
+        for (int i = 0; i < size; i++)
+            tokens.aux[i] = in.readVarInt();
+        if (tokens.kinds.length != size)
+            throw new IllegalStateException("Corrupt cache entry");
+        tokens.size = size;
+        return tokens;
+    }
+
+    // Tokens lexed so far, which is all of them unless they're being pulled
+    public int size() {
+        return this.size;
+    }
+
+    public SourceFile getSource() {
+        return this.source;
+    }
+
+    public Interner getSymbols() {
+        return this.symbols;
+    }
+
+    public LineIndex getLines() {
+        return this.lines;
+    }
+
+    public int start(int i) {
+        return this.starts[i];
+    }
+
+    public int end(int i) {
+        return this.ends[i];
+    }
+
+    public TokenType type(int i) {
+        return TYPES[kinds[i]];
+    }
+
+    public int symbol(int i) {
+        return (type(i) == TokenType.IDENT) ? aux[i] : -1;
+    }
+
+    public String value(int i) {
+        switch (type(i)) {
+            case IDENT:
+                return symbols.name(aux[i]);
+            case INT_LIT:
+            case STRING_LIT:
+            case CHAR_LIT:
+                // true and false are int literals whose value comes from their keyword slot
+                return (aux[i] == -1) ? source.slice(starts[i], ends[i]) : Keywords.value(aux[i]);
+            default:
+                return (aux[i] == -1) ? null : Keywords.value(aux[i]);
+        }
+    }
+
+    public int line(int i) {
+        return lines.lineOf(starts[i]);
+    }
+
+    public int col(int i) {
+        return lines.columnOf(starts[i]);
+    }
+
+    // Builds a standalone Token for slot i, only wanted when a node or diagnostic holds onto it
+    public Token token(int i) {
+        int line = line(i);
+        return build(type(i), source, symbols, starts[i], ends[i], aux[i], line, lines.columnOf(line, starts[i]));
+    }
+
+    static Token build(TokenType type, SourceFile source, Interner symbols, int start, int end, int aux, int line, int col) {
+        if (type == TokenType.IDENT)
+            return new Token(type, symbols.name(aux), aux, line, col);
+        if (aux != -1)
+            return new Token(type, Keywords.value(aux), line, col);
+        if (type == TokenType.INT_LIT || type == TokenType.STRING_LIT || type == TokenType.CHAR_LIT)
+            return new Token(type, source, start, end - start, line, col);
+        return new Token(type, line, col);
+    }
+
+    // Every token as Token.toString shows it, a tab before each and one to a line
+    public void dump(Appendable out) throws IOException {
+        String newline = System.lineSeparator();
+        for (int i = 0; i < size; i++) {
+            int line = line(i);
+            String value = value(i);
+            out.append("\t{type: ").append(type(i).name());
+            if (value != null)
+                out.append(", val: ").append(value);
+            out.append(" (").append(Integer.toString(line)).append(", ");
+            out.append(Integer.toString(lines.columnOf(line, starts[i]))).append(")}").append(newline);
+        }
+    }
+
+    // Every token as a JSON object, one to a line, in an array
+    public void writeJson(Appendable out) throws IOException {
+        out.append('[');
+        for (int i = 0; i < size; i++) {
+            out.append((i == 0) ? "\n" : ",\n");
+            writeJson(i, out);
+        }
+        out.append("\n]");
+    }
+
+    // Slot i as a JSON object, its value left out when it has none
+    public void writeJson(int i, Appendable out) throws IOException {
+        int line = line(i);
+        String value = value(i);
+        out.append("{\"type\": \"").append(type(i).name()).append('"');
+        if (value != null) {
+            out.append(", \"value\": ");
+            Json.string(out, value);
+        }
+        out.append(", \"line\": ").append(Integer.toString(line));
+        out.append(", \"col\": ").append(Integer.toString(lines.columnOf(line, starts[i]))).append('}');
+    }
+
+    // Index of the next token the cursor will hand out
+    public int position() {
+        return this.cursor;
+    }
+
+    void seek(int position) {
+        this.cursor = position;
+    }
+
+    public TokenType peekType(int offset) {
+        return (cursor + offset < size || has(cursor + offset)) ? type(cursor + offset) : null;
+    }
+
+    public Token peek(int offset) {
+        return (cursor + offset < size || has(cursor + offset)) ? token(cursor + offset) : null;
+    }
+
+    public Token consume() {
+        if (cursor >= size && !has(cursor))
+            return null;
+        return token(cursor++);
+    }
+
+    public void skip() {
+        if (cursor < size || has(cursor))
+            cursor++;
+    }
+
+}
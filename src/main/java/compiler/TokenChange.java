@@ -0,0 +1,35 @@
+package compiler;
+
+// Result of an incremental re-lex: tokens [start, start + removed) of the old buffer
+// were replaced by tokens [start, start + inserted) of the new one, everything else carried over
+public class TokenChange {
+
+    private final TokenBuffer tokens;
+    private final int start;
+    private final int removed;
+    private final int inserted;
+
+    public TokenChange(TokenBuffer tokens, int start, int removed, int inserted) {
+        this.tokens = tokens;
+        this.start = start;
+        this.removed = removed;
+        this.inserted = inserted;
+    }
+
+    public TokenBuffer getTokens() {
+        return this.tokens;
+    }
+
+    public int getStart() {
+        return this.start;
+    }
+
+    public int getRemoved() {
+        return this.removed;
+    }
+
+    public int getInserted() {
+        return this.inserted;
+    }
+
+}
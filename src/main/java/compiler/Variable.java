@@ -3,23 +3,29 @@ package compiler;
 public class Variable {
     
     private final String name;
+    private final int symbol;
     private final Token type;
+    private final XyType valueType;
     private final boolean isMutable;
     private boolean isReassigned = false;
     private boolean isUsed = false;
     private int line;
     private int col;
 
-    public Variable(String name, boolean isMutable, Token type, int line, int col) {
-        this.name = name;
+    public Variable(Token identifier, boolean isMutable, Token type, int line, int col) {
+        this.name = identifier.getValue();
+        this.symbol = identifier.getSymbol();
         this.isMutable = isMutable;
         this.type = type;
+        this.valueType = XyType.of(type);
         this.line = line;
         this.col = col;
     }
 
     public String getName() { return this.name; }
+    public int getSymbol() { return this.symbol; }
     public Token getType() { return this.type; }
+    public XyType getValueType() { return this.valueType; }
     public boolean isMutable() { return this.isMutable; }
     public boolean isReassigned() { return this.isReassigned; }
     public boolean isUsed() { return this.isUsed; }
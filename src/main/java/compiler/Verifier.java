@@ -1,13 +1,26 @@
 package compiler;
 
+import compiler.nodes.AstArena;
 import compiler.nodes.NodeFunction;
+import compiler.nodes.NodeKind;
+import compiler.nodes.NodeParameters;
 import compiler.nodes.NodeProgram;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
+import compiler.nodes.expression_nodes.BinaryExpression;
 import compiler.nodes.expression_nodes.NodeExpression;
+import compiler.nodes.expression_nodes.UnaryExpression;
 import compiler.nodes.expression_nodes.term_nodes.ArrayAccess;
+import compiler.nodes.expression_nodes.term_nodes.ArrayExpression;
+import compiler.nodes.expression_nodes.term_nodes.CharExpression;
 import compiler.nodes.expression_nodes.term_nodes.FuncCallNode;
 import compiler.nodes.expression_nodes.term_nodes.IdentExpression;
+import compiler.nodes.expression_nodes.term_nodes.IntLitExpression;
 import compiler.nodes.expression_nodes.term_nodes.ItExpression;
+import compiler.nodes.expression_nodes.term_nodes.NegationExpression;
 import compiler.nodes.expression_nodes.term_nodes.NodeTerm;
+import compiler.nodes.expression_nodes.term_nodes.ParenExpression;
+import compiler.nodes.expression_nodes.term_nodes.StringExpression;
 import compiler.nodes.statement_nodes.NodeAssign;
 import compiler.nodes.statement_nodes.NodeLet;
 import compiler.nodes.statement_nodes.NodePrint;
@@ -27,489 +40,798 @@ import compiler.nodes.statement_nodes.loops.NodeLoop;
 import compiler.nodes.statement_nodes.loops.NodeWhile;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public class Verifier {
     
+    // Bodies are checked in parallel in runs of at least this many functions
+    static final int MIN_CHUNK = 256;
+
     private NodeProgram program;
+    private final Interner symbols;
     private final HashMap<String, String> configSettings;
 
-    private HashMap<String, Integer> funcCallCounts = new HashMap<>();
-    private int loopDepth = 0;
-    private int ITcount = 0;
+    // Function signatures indexed by the interned id of their name, and how often each name was defined
+    private FunctionSignature[] signatures;
+    private int[] definitions;
     private Error handler;
+    private boolean recovering = false; // Errors are being collected, see Error.collect
+    private int parallelism = ForkJoinPool.getCommonPoolParallelism();
 
-    private ArrayList<Variable> variables = new ArrayList<>();
-    private ArrayList<Integer> stack = new ArrayList<>();
+    private FunctionCheckContext context = null; // For checking functions one at a time, see verifyFunction
 
-    public Verifier(NodeProgram program, HashMap<String, String> configSettings, Error handler) {
+    public Verifier(NodeProgram program, Interner symbols, HashMap<String, String> configSettings, Error handler) {
         this.program = program;
+        this.symbols = symbols;
         this.configSettings = configSettings;
         this.handler = handler;
     }
 
-    public int getITCount() {
-        return this.ITcount;
+    public Token getFunctionReturnType(int symbol) {
+        FunctionSignature signature = getSignature(symbol);
+        if (signature == null) { return null; }
+        return signature.getReturnType(); // int, s32, string, void
+
     }
 
-    private void push() {
-        stack.add(0);
+    // Null for a name that isn't a function. A name defined more than once gives its last definition, calls
+    // are still checked against it and checkDuplicateFunctions reports the duplicate
+    public FunctionSignature getSignature(int symbol) {
+        if (symbol < 0 || symbol >= definitions.length || definitions[symbol] == 0) { return null; }
+        return signatures[symbol];
+
     }
 
-    private void addVariable(Variable v) {
-        this.variables.add(v);
-        Integer current = stack.get(stack.size() - 1);
-        stack.remove(stack.size() - 1);
-        stack.add(current + 1);
+    // Every function's signature, built once here and shared by the main and duplicate checks and every call
+    private void indexFunctions() {
+        this.signatures = new FunctionSignature[symbols.size()];
+        this.definitions = new int[symbols.size()];
+        for (NodeFunction function: this.program.getNodeFunctions()) {
+            signatures[function.getSymbol()] = signature(function);
+            definitions[function.getSymbol()]++;
+        }
     }
 
-    private void pop() {
-        Integer size = stack.get(stack.size() - 1);
-        stack.remove(stack.size() -1);
+    private FunctionSignature signature(NodeFunction function) {
+        Token returnType = function.getReturnType();
+        NodeParameters parameters = function.getParameters();
+        XyType[] types = new XyType[parameters.size()];
+        boolean[] mutable = new boolean[parameters.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = XyType.of(parameters.getType(i));
+            mutable[i] = parameters.isMutable(i);
+        }
+        return new FunctionSignature(function.getIdentifier(), returnType, XyType.of(returnType), types, mutable);
+    }
 
-        ArrayList<Variable> popped = new ArrayList<>();
+    // Lets benchmarks time checking on one thread against checking in parallel
+    void useParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
 
-        for (int i = 0; i < size; i++) {
-            popped.add(variables.get(variables.size() - 1));
-            variables.remove(variables.size() - 1);
+    // Checks every body. Past a few hundred functions, runs of them are checked in parallel, each with its
+    // own context and with what it prints held back. The runs are replayed in source order, so what comes
+    // out is what checking them in order prints, up to and including the first error
+    private void typeChecker() {
+        ArrayList<NodeFunction> functions = program.getNodeFunctions();
+        int chunks = Math.min(parallelism * 4, functions.size() / MIN_CHUNK);
+        // Collected errors have to be recovered from in order, on the thread collecting them. On one
+        // thread the runs would only add the cost of holding back their output
+        if (recovering || parallelism < 2 || chunks < 2) {
+            for (NodeFunction f: functions)
+                verifyFunction(f);
+            return;
         }
 
-        for (Variable v: popped) {
-            if (v.isMutable() && !v.isReassigned())
-                handler.unnecessaryMutable(v.getName(), v.getLine(), v.getCol());
-            if (!v.isUsed())
-                handler.unusedVariable(v.getName(), v.getLine(), v.getCol());
+        ArrayList<CheckTask> tasks = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            int start = (int) ((long) functions.size() * i / chunks);
+            int end = (int) ((long) functions.size() * (i + 1) / chunks);
+            CheckTask task = new CheckTask(functions.subList(start, end));
+            ForkJoinPool.commonPool().execute(task);
+            tasks.add(task);
         }
-
+        for (CheckTask task: tasks)
+            task.join().replay();
     }
 
-    private boolean varExists(String n) {
-        return variables.stream().anyMatch(v -> v.getName().equals(n));
-    }
+    // Checks a run of functions on a context of its own
+    private final class CheckTask extends RecursiveTask<Error.Captured> {
+        private static final long serialVersionUID = 1L;
+        private final List<NodeFunction> functions;
 
-     private boolean isMutable(String n) {
-        return variables.stream().filter(v -> v.getName().equals(n)).collect(Collectors.toList()).get(0).isMutable();
-    }
+        CheckTask(List<NodeFunction> functions) {
+            this.functions = functions;
+        }
 
-    private String variableReturnType(String n) {
-        if (!varExists(n)) return null;
-        return mapReturnTypes(variables.stream().filter(v -> v.getName().equals(n)).collect(Collectors.toList()).get(0).getType());
+        protected Error.Captured compute() {
+            FunctionCheckContext context = new FunctionCheckContext();
+            return Error.capture(() -> {
+                for (NodeFunction f: functions)
+                    context.check(f);
+            });
+        }
     }
 
-    public Variable getVariable(String n) {
-        if (!varExists(n)) return null;
-        return variables.stream().filter(v -> v.getName().equals(n)).collect(Collectors.toList()).get(0);
+    // Checks one function's body against the signatures verifySignatures indexed. The function doesn't
+    // have to be from the program's own tree, see FunctionPipeline
+    public void verifyFunction(NodeFunction f) {
+        if (context == null)
+            context = new FunctionCheckContext();
+        context.check(f);
     }
 
-    public Token getFunctionReturnType(String name) {
-        List<NodeFunction> functions =  this.program.getNodeFunctions().stream().filter(f -> f.getFunctionName().equals(name)).collect(Collectors.toList());
-        if (functions.size() != 1) { return null; }
-        return functions.get(0).getReturnType(); // int, s32, string, void
+    private void checkOneMain() {
+        int main = symbols.lookup("main");
+        Integer c = (main == -1) ? 0 : definitions[main];
+        if (c == 0)
+            Error.handleError("VERIFIER", "A main function must be specified");
+         else if (c > 1)
+            Error.handleError("VERIFIER", "Only one main function must be specified, you have " + c);
+    
+        Token name = getSignature(main).getIdentifier();
+        Error.locate(name.getLine(), name.getCol());
+        if (!getSignature(main).getReturnType().getValue().equals("int"))
+            Error.handleError("VERIFIER", "Main function must return an int");
 
     }
 
-    private NodeFunction getFunction(String name) {
-        List<NodeFunction> functions =  this.program.getNodeFunctions().stream().filter(f -> f.getFunctionName().equals(name)).collect(Collectors.toList());
-        if (functions.size() != 1) { return null; }
-        return functions.get(0); // int, s32, string, void
+    private void checkDuplicateFunctions() {
 
-    }
+        for (int symbol = 0; symbol < definitions.length; symbol++) {
+            if (definitions[symbol] <= 1)
+                continue;
+            // The last definition is the one that's reported
+            Token name = signatures[symbol].getIdentifier();
+            Error.locate(name.getLine(), name.getCol());
+            try {
+                Error.handleError("VERIFIER", "You have multiple functions with the name: " + symbols.name(symbol));
+            } catch (Error.Reported e) {
+                // Already collected
+            }
+        }
 
-    public String mapReturnTypes(Token s) {
-        String buffer = "";
-        if (s.getType().equals(TokenType.ARR)) 
-            buffer = buffer.concat("array|");
+    }
 
-        if (s.getType().equals(TokenType.VOID)) {
-            if (buffer.equals("array|"))
-                    Error.handleError("VERIFIER", "Can't construct an array<void>");
-            return "void";
+    public void checkVariable(String variable) {
+        if (this.configSettings.containsKey("SNAKE-CASE") && this.configSettings.get("SNAKE-CASE").equals("true")) {
+            if (!Pattern.compile("^[a-z]+(_[a-z]+)*$").matcher(variable).find())
+                Error.minorError("CONFIG-SPECIFIC", "Variable '" + variable + "' isn't snake_case");
         }
 
-        switch (s.getValue()) {
-            case "int":
-            case "bool":
-            case "it":
-                return buffer.concat("numeric");
-            case "str":
-                return buffer.concat("str");
-            case "char":
-                return buffer.concat("char");
-            case "void":
-                if (buffer.equals("array|"))
-                    Error.handleError("VERIFIER", "Can't construct an array<void>");
-                return "void";
+        if (this.configSettings.containsKey("CAMEL-CASE") && this.configSettings.get("CAMEL-CASE").equals("true")) {
+            if (!Pattern.compile("^[a-z]+([A-Z][a-z]+)*$").matcher(variable).find())
+                Error.minorError("CONFIG-SPECIFIC", "Variable '" + variable + "' isn't camelCase");
         }
-        return "";
+    } 
+
+    public void verify() {
+        verifySignatures();
+        typeChecker();
     }
 
-    private String getExpressionType(NodeExpression expression) {
-        String x = expression.getType(this, handler);
-        if (expression instanceof FuncCallNode) {
-            FuncCallNode expression1 = (FuncCallNode) expression;
-            Token returnType = verifyFunctionCall(expression1);
-            return mapReturnTypes(returnType);
-        } else if (expression instanceof IdentExpression) {
-            IdentExpression expression2 = (IdentExpression) expression;
-            String name = expression2.getToken().getValue();
-            if (!varExists(name))
-                handler.undeclaredVariable(name, expression2.getToken().getLine(), expression2.getToken().getCol());
-            return variableReturnType(name);
-        } else if (expression instanceof ArrayAccess) {
-            x = x.split("\\|")[1];
+    // Indexes the program's functions for calls and checks what can be checked from their signatures alone
+    public void verifySignatures() {
+        this.recovering = Error.collecting();
+        indexFunctions();
+        try {
+            checkOneMain();
+        } catch (Error.Reported e) {
+            // Already collected
         }
-        return x;
+        checkDuplicateFunctions();
     }
 
-    private Token verifyFunctionCall(FuncCallNode func) {
-         
-        Token identifier = func.getIdentifier();
-        String funcName = identifier.getValue();
-        Token returnType = getFunctionReturnType(funcName);
-        if (returnType == null)
-            handler.undeclaredFunction(funcName, identifier.getLine(), identifier.getCol());
-        
-        ArrayList<NodeTerm> parametersProvided = func.getParameters();
-        LinkedHashMap<String, Token> realParameters = getFunction(funcName).getParameters().getVariables();
-        if (parametersProvided.size() != realParameters.size())
-            handler.wrongNumArgumentsFunction(funcName, realParameters.size(), parametersProvided.size(), identifier.getLine(), identifier.getCol());
-
-        Integer i = 0;
-        for (Map.Entry<String, Token> entry : realParameters.entrySet()) {
-            String realType = mapReturnTypes(entry.getValue());
-            Boolean isRealMutable = getFunction(funcName).getParameters().isMutable(i);
-            
-            if (parametersProvided.get(i) instanceof IdentExpression) {
-                Token x = ((IdentExpression) parametersProvided.get(i)).getToken();
-                String varName = x.getValue();
-                Boolean isProvidedMutable = isMutable(varName);
-                if (isRealMutable && !isProvidedMutable)
-                    handler.expectedMutable((i + 1), x.getLine(), x.getCol());
-
-            } else {
-                String providedType = getExpressionType(parametersProvided.get(i));
-                if (providedType.equals("it") && ITcount <= 0)
-                    handler.itKeyword(parametersProvided.get(i).getToken().getLine(), parametersProvided.get(i).getToken().getCol());
-                if (providedType.equals("it"))  {
-                    ItExpression x = (ItExpression) parametersProvided.get(i);
-                    x.setDepth(ITcount);
-                    providedType = "numeric";
-                }
-                if (!realType.equals(providedType))
-                    Error.handleError("VERIFIER", String.format("Expected arg %s to be of type %s, but received %s", (i + 1), realType, providedType));
+    // Everything checking one function's body changes, the variables in scope, the scans queued and the
+    // expressions being typed. The signatures it checks calls against are the Verifier's, so a context per
+    // thread can check bodies in parallel
+    private final class FunctionCheckContext {
+
+        // Loops around the statement being checked, and the counted ones among them that 'it' refers to
+        private int loopDepth = 0;
+        private int ITcount = 0;
+
+        // Variables in scope by symbol, the innermost declaration of each. Every declaration is logged with the
+        // one it hid, and each open scope remembers where its own declarations start in the log, so closing it
+        // undoes just those, newest first
+        private Variable[] visible = new Variable[symbols.size()];
+        private Variable[] declared = new Variable[16];
+        private Variable[] hidden = new Variable[16];
+        private int declaredCount = 0;
+        private int[] scopes = new int[16];
+        private int scopeCount = 0;
+
+        // Statements still to scan and what's left to do once a body is done, next last. Bodies are queued
+        // here rather than scanned in place, so nesting depth is limited by the heap and not the thread stack
+        private final ArrayList<Runnable> scans = new ArrayList<>();
+
+        // The function being checked
+        private XyType fReturnType;
+        private String fName;
+
+        private final StatementChecker checker = new StatementChecker();
+        private final ExpressionTyper typer = new ExpressionTyper();
+
+        // Expressions being typed, innermost last, with how far through its children each one is
+        private NodeExpression[] typing = new NodeExpression[32];
+        private int[] phases = new int[32];
+        private XyType[] firstTypes = new XyType[32]; // An array's first element type, by frame
+        private boolean[] wholes = new boolean[32]; // Whether a frame is a whole expression, see getExpressionType
+        private int typingCount = 0;
+        private XyType typed; // Type of the expression finished last
+
+        private void push() {
+            if (scopeCount == scopes.length)
+                scopes = Arrays.copyOf(scopes, scopeCount * 2);
+            scopes[scopeCount++] = declaredCount;
+        }
+
+        private void addVariable(Variable v) {
+            int symbol = v.getSymbol();
+            if (symbol >= visible.length)
+                visible = Arrays.copyOf(visible, Math.max(symbol + 1, visible.length * 2));
+            if (declaredCount == declared.length) {
+                declared = Arrays.copyOf(declared, declaredCount * 2);
+                hidden = Arrays.copyOf(hidden, declaredCount * 2);
+            }
+            declared[declaredCount] = v;
+            hidden[declaredCount++] = visible[symbol];
+            visible[symbol] = v;
+        }
+
+        private void pop() {
+            int start = scopes[--scopeCount];
+            while (declaredCount > start) {
+                Variable v = declared[--declaredCount];
+                visible[v.getSymbol()] = hidden[declaredCount];
+                declared[declaredCount] = null;
+                hidden[declaredCount] = null;
+
+                if (v.isMutable() && !v.isReassigned())
+                    handler.unnecessaryMutable(v.getName(), v.getLine(), v.getCol());
+                if (!v.isUsed())
+                    handler.unusedVariable(v.getName(), v.getLine(), v.getCol());
             }
 
-            String providedType = getExpressionType(parametersProvided.get(i));
-            if (providedType.equals("it") && ITcount <= 0)
-                handler.itKeyword(parametersProvided.get(i).getToken().getLine(), parametersProvided.get(i).getToken().getCol());
-            if (providedType.equals("it")) {
-                ItExpression x = (ItExpression) parametersProvided.get(i);
-                x.setDepth(ITcount);
-                providedType = "numeric";  
-            } 
-            if (!realType.equals(providedType))
-                Error.handleError("VERIFIER", String.format("Expected arg %s to be of type %s, but received %s", (i + 1), realType, providedType));
-            i++;
         }
 
-        for (NodeTerm x: parametersProvided)
-            x.getType(this, handler);
-        return returnType;
-    }
+        private boolean varExists(int n) {
+            return getVariable(n) != null;
+        }
 
-    private void typeChecker() {
+         private boolean isMutable(int n) {
+            return getVariable(n).isMutable();
+        }
+
+        private XyType variableReturnType(int n) {
+            if (!varExists(n)) return null;
+            return getVariable(n).getValueType();
+        }
+
+        private Variable getVariable(int n) {
+            return (n >= 0 && n < visible.length) ? visible[n] : null;
+        }
 
-        for (NodeFunction f: program.getNodeFunctions()) {
+        // Checks one function's body, and leaves the context as it found it for the next one
+        void check(NodeFunction f) {
+            f.accept(checker);
+            while (!scans.isEmpty())
+                scans.remove(scans.size() - 1).run();
+        }
 
-            push();
-            String fName = f.getFunctionName();
-            Set<String> keys = f.getParameters().getVariables().keySet();
-            Token returnT = f.getReturnType();
-            int i = 0;
-            for (String p: keys) {
-                Token token = f.getParameters().getVariables().get(p);
-                addVariable(new Variable(p, f.getParameters().isMutable(i), token, token.getLine(), token.getCol()));
-                i++;
+        // Types a whole expression on the typing stack, each node in it once, and leaves every node's type on it
+        // for the generator. Each frame's expression is visited by the typer once to start it and again after
+        // each child it asked for has been typed, and gives back null until it has its own type. For a whole
+        // expression, the typer also checks a call's arguments and gives an array access the element's type.
+        // A whole call's arguments are whole expressions too, typed on the same stack, so nesting calls is
+        // limited by the heap like nesting anything else
+        private XyType getExpressionType(NodeExpression expression) {
+            int base = typingCount;
+            try {
+                awaitType(expression, true);
+                while (typingCount > base) {
+                    NodeExpression top = typing[typingCount - 1];
+                    XyType type = top.accept(typer);
+                    if (type != null) {
+                        top.setResolvedType(type);
+                        typed = type;
+                        typingCount--;
+                    }
+                }
+                return typed;
+            } finally {
+                typingCount = base;
             }
+        }
 
-            for (NodeStatement s: f.getStatements().getStatements()) {
-               scanStatement(s, returnT, fName);
+        private void awaitType(NodeExpression expression, boolean whole) {
+            if (typingCount == typing.length) {
+                typing = Arrays.copyOf(typing, typingCount * 2);
+                phases = Arrays.copyOf(phases, typingCount * 2);
+                firstTypes = Arrays.copyOf(firstTypes, typingCount * 2);
+                wholes = Arrays.copyOf(wholes, typingCount * 2);
             }
-            pop();
+            typing[typingCount] = expression;
+            wholes[typingCount] = whole;
+            phases[typingCount++] = 0;
         }
-    }
-        
-    private void scanStatement(NodeStatement s, Token returnT, String fName) {
-
-        if (s instanceof NodeReturn) {
-
-            NodeReturn s1 = (NodeReturn) s;
-            String type = "void";
-            if (s1.getExpression() != null)
-                type = getExpressionType(s1.getExpression());
-
-            String returnType = "void";
-            if (returnT.getValue() != null)
-                returnType = mapReturnTypes(returnT);
-
-            if (!type.equals(returnType))
-                handler.incompatibleReturnTypes(fName, returnType, type, s1.getLine(), s1.getCol());
-
-        } else if (s instanceof FuncCallNode) {
-            
-            verifyFunctionCall((FuncCallNode) s);
-        
-        } else if (s instanceof NodeAssign) {
-
-            NodeAssign s1 = (NodeAssign) s;
-            String name = s1.getIdentifier().convert();
-            boolean access = (s1.getIdentifier() instanceof ArrayAccess);
-            if (access)
-                name = name.split("\\[")[0];
-            if (!varExists(name))
-                handler.undeclaredVariable(name, s1.getLine(), s1.getCol());
-            Variable currentVar = getVariable(name);
-            if (!currentVar.isMutable())
-                handler.reassigningMutable(name, s1.getLine(), s1.getCol());
-            currentVar.setReassigned();
-            String existingType = (access) ? variableReturnType(name).split("\\|")[1]: variableReturnType(name);
-            String assignedType = getExpressionType(s1.getExpression());
-
-            if (assignedType.equals("it") && ITcount <= 0)
-                handler.itKeyword(s1.getLine(), s1.getCol());
-            if (assignedType.equals("it")) {
-                ItExpression x = (ItExpression) s1.getExpression();
+
+        private void checkOperand(NodeExpression operand, XyType type) {
+            if (type == XyType.IT)  {
+                ItExpression x = (ItExpression) operand;
                 x.setDepth(ITcount);
-                assignedType = "numeric";
+                type = XyType.NUMERIC;
+                if (ITcount <= 0) Error.handleError("VERIFIER", "Can't use 'it' keyword outside of loop context");
             }
-            if (!(existingType.equals("char") && assignedType.equals("numeric")) || (existingType.equals("numeric") && assignedType.equals("char"))) {
-                if (!existingType.equals(assignedType))
-                    Error.handleError("VERIFIER", String.format("Incompatible types, assigning %s to variable %s when it's %s", assignedType, name, existingType));
+            if (!(type == XyType.NUMERIC || type == XyType.CHAR))
+                Error.handleError("VERIFIER", "Inappropriate attempt to use a non-numeric type in a string expression");
+        }
+
+        // Types the expression on top of the typing stack. Composite expressions read how far through their
+        // children they are from its phase, and hand the next one over with descend
+        private final class ExpressionTyper implements NodeVisitor<XyType> {
+
+            private int phase() {
+                return phases[typingCount - 1];
             }
-        
-            } else if (s instanceof NodeLet) {
 
-                NodeLet s1 = (NodeLet) s;
-                String name = s1.getIdentifier().getValue();
-                checkVariable(name);
+            // Types child next, then visits this frame again at the given phase
+            private XyType descend(int phase, AstArena arena, int child) {
+                return descend(phase, arena, child, false);
+            }
 
-                if (varExists(name))
-                    handler.preExistingVariable(name, s1.getIdentifier().getLine(), s1.getIdentifier().getCol());
+            private XyType descend(int phase, AstArena arena, int child, boolean whole) {
+                phases[typingCount - 1] = phase;
+                awaitType(arena.expression(child), whole);
+                return null;
+            }
+
+            private boolean isWhole() {
+                return wholes[typingCount - 1];
+            }
 
-                String expectedType = mapReturnTypes(s1.getType());
-                String realType = getExpressionType(s1.getExpression());
+            // Operands that are array accesses aren't typed or checked
+            public XyType visitBinary(BinaryExpression binary) {
+                AstArena arena = binary.getArena();
+                int node = binary.getNode();
+                int phase = phase();
+                if (phase > 0)
+                    checkOperand(arena.expression(node, phase - 1), typed);
+                int next = phase;
+                while (next < 2 && arena.kind(arena.child(node, next)) == NodeKind.ARRAY_ACCESS)
+                    next++;
+                if (next < 2)
+                    return descend(next + 1, arena, arena.child(node, next));
+                return XyType.NUMERIC;
+            }
 
-                if (realType.equals("it") && ITcount <= 0)
-                    handler.itKeyword(s1.getIdentifier().getLine(), s1.getIdentifier().getCol());
-                if (realType.equals("it")) {
-                    ItExpression x = (ItExpression) s1.getExpression();
-                    x.setDepth(ITcount);
-                    realType = "numeric";
+            // Only has an operand for the compound assignments
+            public XyType visitUnary(UnaryExpression unary) {
+                int operand = unary.getArena().child(unary.getNode(), 0);
+                if (phase() == 0 && operand != AstArena.NONE)
+                    return descend(1, unary.getArena(), operand);
+                return XyType.NUMERIC;
+            }
+
+            public XyType visitNegation(NegationExpression negation) {
+                if (phase() == 0)
+                    return descend(1, negation.getArena(), negation.getArena().child(negation.getNode(), 0));
+                return XyType.NUMERIC;
+            }
+
+            public XyType visitParen(ParenExpression paren) {
+                if (phase() == 0)
+                    return descend(1, paren.getArena(), paren.getArena().child(paren.getNode(), 0));
+                return typed;
+            }
+
+            // Every element has to have the first one's type
+            public XyType visitArray(ArrayExpression array) {
+                AstArena arena = array.getArena();
+                int node = array.getNode();
+                int frame = typingCount - 1;
+                int phase = phase();
+                int count = arena.childCount(node);
+                if (phase == 1)
+                    firstTypes[frame] = typed;
+                else if (phase > 1 && typed != firstTypes[frame])
+                    Error.handleError("VERIFIER", "Attempting to assign multiple types to a single array");
+                if (phase < count)
+                    return descend(phase + 1, arena, arena.child(node, phase));
+                return ((count == 0) ? XyType.ANY : firstTypes[frame]).arrayOf();
+            }
+
+            // A whole call types each argument as a whole expression and checks it against its parameter when
+            // it comes back. Calls inside other expressions aren't checked
+            public XyType visitFuncCall(FuncCallNode call) {
+                AstArena arena = call.getArena();
+                int node = call.getNode();
+                FunctionSignature signature = getSignature(call.getSymbol());
+                int phase = phase();
+                if (phase == 0) {
+                    Token identifier = call.getIdentifier();
+                    if (signature == null)
+                        handler.undeclaredFunction(call.getFunctionName(), identifier.getLine(), identifier.getCol());
+                    if (!isWhole())
+                        return signature.getMappedReturnType();
+                    if (arena.childCount(node) != signature.size())
+                        handler.wrongNumArgumentsFunction(call.getFunctionName(), signature.size(), arena.childCount(node), identifier.getLine(), identifier.getCol());
+                } else {
+                    checkArgument(signature, phase - 1, arena.term(arena.child(node, phase - 1)), typed);
+                }
+                if (phase == signature.size())
+                    return signature.getMappedReturnType();
+
+                NodeTerm argument = arena.term(arena.child(node, phase));
+                if (argument instanceof IdentExpression) {
+                    IdentExpression x = (IdentExpression) argument;
+                    if (signature.isMutable(phase) && !isMutable(x.getSymbol()))
+                        handler.expectedMutable((phase + 1), x.getToken().getLine(), x.getToken().getCol());
                 }
+                return descend(phase + 1, arena, arena.child(node, phase), true);
+            }
 
-                if (!realType.endsWith("any") && !expectedType.equals(realType)) // real type is to do
-                    Error.handleError("VERIFIER", String.format("Attempting to assign expression of type %s to variable %s of type %s", realType, name, expectedType));
-                Token identifier = s1.getIdentifier();
-                addVariable(new Variable(name, !s1.isConstant(), s1.getType(), identifier.getLine(), identifier.getCol()));
+            public XyType visitIdent(IdentExpression ident) {
+                Variable x = getVariable(ident.getSymbol());
+                if (x == null)
+                    handler.undeclaredVariable(ident.getToken().getValue(), ident.getToken().getLine(), ident.getToken().getCol());
+                x.setUsed();
+                return x.getValueType();
+            }
+
+            public XyType visitArrayAccess(ArrayAccess access) {
+                XyType type = getVariable(access.getSymbol()).getValueType();
+                return isWhole() ? type.getElement() : type;
+            }
+
+            public XyType visitChar(CharExpression character) {
+                return XyType.CHAR;
+            }
+
+            public XyType visitIntLit(IntLitExpression intLit) {
+                return XyType.NUMERIC;
+            }
+
+            public XyType visitIt(ItExpression it) {
+                return XyType.IT;
+            }
 
-        } else if (s instanceof NodePrint) {
+            public XyType visitString(StringExpression string) {
+                return XyType.STR;
+            }
+
+            // Only expressions are typed
+            public XyType visitFunction(NodeFunction function) { throw notTyped(function); }
+            public XyType visitAssign(NodeAssign assign) { throw notTyped(assign); }
+            public XyType visitLet(NodeLet let) { throw notTyped(let); }
+            public XyType visitPrint(NodePrint print) { throw notTyped(print); }
+            public XyType visitReturn(NodeReturn ret) { throw notTyped(ret); }
+            public XyType visitScan(NodeScan scan) { throw notTyped(scan); }
+            public XyType visitScope(NodeScope scope) { throw notTyped(scope); }
+            public XyType visitIf(NodeIf ifStatement) { throw notTyped(ifStatement); }
+            public XyType visitElif(NodeIfPredicateElif elif) { throw notTyped(elif); }
+            public XyType visitElse(NodeIfPredicateElse elseStatement) { throw notTyped(elseStatement); }
+            public XyType visitBreak(NodeBreak breakStatement) { throw notTyped(breakStatement); }
+            public XyType visitContinue(NodeContinue continueStatement) { throw notTyped(continueStatement); }
+            public XyType visitDo(NodeDo doStatement) { throw notTyped(doStatement); }
+            public XyType visitFor(NodeFor forStatement) { throw notTyped(forStatement); }
+            public XyType visitLoop(NodeLoop loop) { throw notTyped(loop); }
+            public XyType visitWhile(NodeWhile whileStatement) { throw notTyped(whileStatement); }
+
+            private IllegalStateException notTyped(NodeView view) {
+                return new IllegalStateException("Typing a " + view.getArena().kind(view.getNode()) + " node");
+            }
 
-            NodePrint s1 = (NodePrint) s;
+        }
 
-            if (getExpressionType(s1.getTerm()).equals("it")) {
-                ItExpression x = (ItExpression) s1.getTerm();
+        // Argument i of a call, once it's been typed, against its parameter
+        private void checkArgument(FunctionSignature signature, int i, NodeTerm argument, XyType providedType) {
+            if (providedType == XyType.IT && ITcount <= 0)
+                handler.itKeyword(argument.getToken().getLine(), argument.getToken().getCol());
+            if (providedType == XyType.IT) {
+                ItExpression x = (ItExpression) argument;
                 x.setDepth(ITcount);
+                providedType = XyType.NUMERIC;
+            }
+            XyType realType = signature.getParameterType(i);
+            if (realType != providedType)
+                Error.handleError("VERIFIER", String.format("Expected arg %s to be of type %s, but received %s", (i + 1), realType, providedType));
+        }
 
-                if (ITcount <= 0)
-                    handler.itKeyword(x.getToken().getLine(), x.getToken().getCol());
-            }
-
-            s1.setReturnType(getExpressionType(s1.getTerm()));
-            if (s1.getTerm().getType(this, handler).equals("void"))
-                Error.handleError("VERIFIER", "'out' method can only log types that are numeric or strings, not void");
-
-        } else if (s instanceof NodeScan) {
-
-            if (((NodeScan) s).getType().getValue().equals("void"))
-                Error.handleError("VERIFIER", "'in' method can only scan types that are numeric or strings, not void");
-            NodeScan s1 = (NodeScan) s;
-            Token identifier = s1.getIdentifier();
-            addVariable(new Variable(identifier.getValue(), !s1.isConstant(), s1.getType(), identifier.getLine(), identifier.getCol()));
-
-        } else if (s instanceof NodeScope) {
-
-            push();
-            for (NodeStatement s1: ((NodeScope) s).getStatements())
-                scanStatement(s1, returnT, fName);
-            pop();
-            
-        } else if (s instanceof NodeIf) {
-            NodeIf s1 = (NodeIf) s;
-            if (!getExpressionType(s1.getExpression()).equals("numeric"))
-                Error.handleError("VERIFIER", "An 'if' condition can only evaluate a numeric expression");
-        
-            push();
-            for (NodeStatement s2: ((NodeScope) s1.getScope()).getStatements())
-                scanStatement(s2, returnT, fName);
-            pop();
-
-            if (s1.getPredicate() == null) return;
-            NodeIfPredicate s2 = s1.getPredicate();
-            while (true) {
-
-                if (s2 instanceof NodeIfPredicateElif) {
-                    NodeIfPredicateElif elif = (NodeIfPredicateElif) s2;
-                    if (!getExpressionType(elif.getExpression()).equals("numeric"))
-                        Error.handleError("VERIFIER", "An 'else if' condition can only evaluate a numeric expression");
-                    push();
-                    for (NodeStatement s3: ((NodeScope) elif.getScope()).getStatements())
-                        scanStatement(s3, returnT, fName);
-                    pop();
+        // Queues a body's statements, then what to do once they're all scanned
+        private void scanBody(NodeScope scope, Runnable after) {
+            scans.add(after);
+            ArrayList<NodeStatement> statements = scope.getStatements();
+            for (int i = statements.size() - 1; i >= 0; i--) {
+                NodeStatement statement = statements.get(i);
+                scans.add(() -> scan(statement));
+            }
+        }
 
-                    if (elif.getPredicate() == null) return;
-                } else if (s2 instanceof NodeIfPredicateElse) {
-                    NodeIfPredicateElse elseWord = (NodeIfPredicateElse) s2;
-                    push();
-                    for (NodeStatement s3: ((NodeScope) elseWord.getScope()).getStatements())
-                        scanStatement(s3, returnT, fName);
-                    pop();
-                    return;
+        // An error only ends the statement it's in when errors are being collected. A declaration that fails
+        // still declares its variable, so later uses don't report it again as undeclared
+        private void scan(NodeStatement s) {
+            if (s == null)
+                return; // An empty '{}' statement
+            if (!recovering) {
+                s.accept(checker);
+                return;
+            }
+            AstArena arena = ((NodeView) s).getArena();
+            int first = arena.firstToken(((NodeView) s).getNode());
+            if (first != AstArena.NONE) {
+                Token token = arena.getTokens().token(first);
+                Error.locate(token.getLine(), token.getCol());
+            }
+            try {
+                s.accept(checker);
+            } catch (Error.Reported e) {
+                if (s instanceof NodeLet) {
+                    NodeLet s1 = (NodeLet) s;
+                    Token identifier = s1.getIdentifier();
+                    if (!varExists(identifier.getSymbol()))
+                        addVariable(new Variable(identifier, !s1.isConstant(), s1.getType(), identifier.getLine(), identifier.getCol()));
+                }
+            }
+        }
+
+        // A condition of the wrong type doesn't stop its body being scanned when errors are being collected
+        private void checkCondition(NodeExpression condition, String error) {
+            try {
+                if (getExpressionType(condition) != XyType.NUMERIC)
+                    Error.handleError("VERIFIER", error);
+            } catch (Error.Reported e) {
+                // Already collected
+            }
+        }
+
+        // Checks one statement of the function being checked. Statements with a body queue it on scans
+        // instead of recursing, and an if's else if / else chain is checked one link at a time as each
+        // body finishes
+        private final class StatementChecker implements NodeVisitor<Void> {
+
+            public Void visitFunction(NodeFunction f) {
+                push();
+                fName = f.getFunctionName();
+                Token returnT = f.getReturnType();
+                fReturnType = XyType.of(returnT);
+                NodeParameters parameters = f.getParameters();
+                for (int i = 0; i < parameters.size(); i++) {
+                    Token token = parameters.getType(i);
+                    addVariable(new Variable(parameters.getIdentifier(i), parameters.isMutable(i), token, token.getLine(), token.getCol()));
                 }
 
-                s2 = ((NodeIfPredicateElif) s2).getPredicate();
+                scanBody(f.getStatements(), FunctionCheckContext.this::pop);
+                return null;
             }
 
-        } else if (s instanceof NodeDo) {
-            
-            NodeDo s1 = (NodeDo) s;
+            public Void visitReturn(NodeReturn s1) {
+                XyType type = XyType.VOID;
+                if (s1.getExpression() != null)
+                    type = getExpressionType(s1.getExpression());
 
-            push();
-            this.loopDepth++;
-            for (NodeStatement s3: ((NodeScope) s1.getScope()).getStatements())
-                scanStatement(s3, returnT, fName);
-            this.loopDepth--;
-            pop();
+                if (type != fReturnType)
+                    handler.incompatibleReturnTypes(fName, fReturnType.toString(), type.toString(), s1.getLine(), s1.getCol());
+                return null;
+            }
+
+            public Void visitFuncCall(FuncCallNode call) {
+                getExpressionType(call);
+                return null;
+            }
 
-            if (!getExpressionType(s1.getExpression()).equals("numeric"))
-                Error.handleError("VERIFIER", "A 'do-while' condition can only evaluate a numeric expression");
+            public Void visitAssign(NodeAssign s1) {
+                String name = s1.getIdentifier().convert();
+                int symbol = s1.getIdentifier().getSymbol();
+                boolean access = (s1.getIdentifier() instanceof ArrayAccess);
+                if (access)
+                    name = name.split("\\[")[0];
+                if (!varExists(symbol))
+                    handler.undeclaredVariable(name, s1.getLine(), s1.getCol());
+                Variable currentVar = getVariable(symbol);
+                if (!currentVar.isMutable())
+                    handler.reassigningMutable(name, s1.getLine(), s1.getCol());
+                currentVar.setReassigned();
+                XyType existingType = (access) ? variableReturnType(symbol).getElement() : variableReturnType(symbol);
+                XyType assignedType = getExpressionType(s1.getExpression());
+
+                if (assignedType == XyType.IT && ITcount <= 0)
+                    handler.itKeyword(s1.getLine(), s1.getCol());
+                if (assignedType == XyType.IT) {
+                    ItExpression x = (ItExpression) s1.getExpression();
+                    x.setDepth(ITcount);
+                    assignedType = XyType.NUMERIC;
+                }
+                // A numeric value can go in a char
+                if (!(existingType == XyType.CHAR && assignedType == XyType.NUMERIC)) {
+                    if (existingType != assignedType)
+                        Error.handleError("VERIFIER", String.format("Incompatible types, assigning %s to variable %s when it's %s", assignedType, name, existingType));
+                }
+                return null;
+            }
 
-        } else if (s instanceof NodeWhile) {
+            public Void visitLet(NodeLet s1) {
+                String name = s1.getIdentifier().getValue();
+                checkVariable(name);
 
-            NodeWhile s1 = (NodeWhile) s;
-            if (!getExpressionType(s1.getExpression()).equals("numeric"))
-                Error.handleError("VERIFIER", "A 'while' condition can only evaluate a numeric expression");
+                if (varExists(s1.getIdentifier().getSymbol()))
+                    handler.preExistingVariable(name, s1.getIdentifier().getLine(), s1.getIdentifier().getCol());
 
-            push();
-            this.loopDepth++;
-            for (NodeStatement s3: ((NodeScope) s1.getScope()).getStatements())
-                scanStatement(s3, returnT, fName);
-            this.loopDepth--;
-            pop();
+                XyType expectedType = XyType.of(s1.getType());
+                XyType realType = getExpressionType(s1.getExpression());
 
-        } else if (s instanceof NodeFor) {
-            NodeFor s1 = (NodeFor) s;
-            push();
-            this.loopDepth++;
-            
-            if (s1.getInitializer() != null)
-                scanStatement(s1.getInitializer(), returnT, fName);
-            if (s1.getCondition() != null) {
-                if (!getExpressionType(s1.getCondition()).equals("numeric"))
-                    Error.handleError("VERIFIER", "A 'for' loop can only evaluate a numeric expression");
+                if (realType == XyType.IT && ITcount <= 0)
+                    handler.itKeyword(s1.getIdentifier().getLine(), s1.getIdentifier().getCol());
+                if (realType == XyType.IT) {
+                    ItExpression x = (ItExpression) s1.getExpression();
+                    x.setDepth(ITcount);
+                    realType = XyType.NUMERIC;
+                }
+
+                if (!expectedType.accepts(realType))
+                    Error.handleError("VERIFIER", String.format("Attempting to assign expression of type %s to variable %s of type %s", realType, name, expectedType));
+                Token identifier = s1.getIdentifier();
+                addVariable(new Variable(identifier, !s1.isConstant(), s1.getType(), identifier.getLine(), identifier.getCol()));
+                return null;
             }
-            if (s1.getIterator() != null)
-                scanStatement(s1.getIterator(), returnT, fName);
-            for (NodeStatement s3: ((NodeScope) s1.getScope()).getStatements())
-                scanStatement(s3, returnT, fName);
 
-            this.loopDepth--;
-            pop();
+            public Void visitPrint(NodePrint s1) {
+                XyType type = getExpressionType(s1.getTerm());
+                if (type == XyType.IT) {
+                    ItExpression x = (ItExpression) s1.getTerm();
+                    x.setDepth(ITcount);
+
+                    if (ITcount <= 0)
+                        handler.itKeyword(x.getToken().getLine(), x.getToken().getCol());
+                }
+
+                if (type == XyType.VOID)
+                    Error.handleError("VERIFIER", "'out' method can only log types that are numeric or strings, not void");
+                return null;
+            }
 
-        } else if (s instanceof NodeLoop) {
-            NodeLoop s1 = (NodeLoop) s;
+            public Void visitScan(NodeScan s1) {
+                if (s1.getType().getValue().equals("void"))
+                    Error.handleError("VERIFIER", "'in' method can only scan types that are numeric or strings, not void");
+                Token identifier = s1.getIdentifier();
+                addVariable(new Variable(identifier, !s1.isConstant(), s1.getType(), identifier.getLine(), identifier.getCol()));
+                return null;
+            }
 
-            if (s1.getCount() != null) {
-                Integer realCount = Integer.parseInt(s1.getCount());
-                if (realCount <= 0)
-                    Error.handleError("VERIFIER", "Can't provide a non-natural number as a loop count specifier");
+            public Void visitScope(NodeScope scope) {
+                push();
+                scanBody(scope, FunctionCheckContext.this::pop);
+                return null;
             }
 
-            push();
-            this.loopDepth++;
-            this.ITcount++;
-            s1.setDepth(ITcount);
-            for (NodeStatement s3: ((NodeScope) s1.getScope()).getStatements())
-                scanStatement(s3, returnT, fName);
-            this.ITcount--;
-            this.loopDepth--;
-            pop();
-        } else if (s instanceof NodeContinue) {
+            public Void visitIf(NodeIf s1) {
+                checkCondition(s1.getExpression(), "An 'if' condition can only evaluate a numeric expression");
 
-            if (this.loopDepth <= 0)
-                Error.handleError("VERIFIER", "A 'continue' statement may only be used in a loop");
+                push();
+                scanBody(s1.getScope(), () -> {
+                    pop();
+                    NodeIfPredicate predicate = s1.getPredicate();
+                    if (predicate != null)
+                        predicate.accept(this);
+                });
+                return null;
+            }
 
-        } else if (s instanceof NodeBreak) {
+            public Void visitElif(NodeIfPredicateElif elif) {
+                checkCondition(elif.getExpression(), "An 'else if' condition can only evaluate a numeric expression");
+                push();
+                scanBody(elif.getScope(), () -> {
+                    pop();
+                    NodeIfPredicate predicate = elif.getPredicate();
+                    if (predicate != null)
+                        predicate.accept(this);
+                });
+                return null;
+            }
 
-            if (this.loopDepth <= 0)
-                Error.handleError("VERIFIER", "A 'break' statement may only be used in a loop");
+            public Void visitElse(NodeIfPredicateElse elseStatement) {
+                push();
+                scanBody(elseStatement.getScope(), FunctionCheckContext.this::pop);
+                return null;
+            }
 
-        }
+            public Void visitDo(NodeDo s1) {
+                push();
+                loopDepth++;
+                scanBody(s1.getScope(), () -> {
+                    loopDepth--;
+                    pop();
 
-    }
+                    checkCondition(s1.getExpression(), "A 'do-while' condition can only evaluate a numeric expression");
+                });
+                return null;
+            }
 
-    private void checkOneMain() {
-        Integer c = program.getNodeFunctions().stream().filter(f -> f.getFunctionName().equals("main")).collect(Collectors.toList()).size();
-        if (c == 0)
-            Error.handleError("VERIFIER", "A main function must be specified");
-         else if (c > 1)
-            Error.handleError("VERIFIER", "Only one main function must be specified, you have " + c);
-    
-        if (!getFunction("main").getReturnType().getValue().equals("int"))
-            Error.handleError("VERIFIER", "Main function must return an int");
+            public Void visitWhile(NodeWhile s1) {
+                checkCondition(s1.getExpression(), "A 'while' condition can only evaluate a numeric expression");
 
-    }
+                push();
+                loopDepth++;
+                scanBody(s1.getScope(), () -> {
+                    loopDepth--;
+                    pop();
+                });
+                return null;
+            }
 
-    private void checkDuplicateFunctions() {
+            public Void visitFor(NodeFor s1) {
+                push();
+                loopDepth++;
+
+                // The initializer and iterator are single assignments, they can't queue anything
+                if (s1.getInitializer() != null)
+                    scan(s1.getInitializer());
+                if (s1.getCondition() != null)
+                    checkCondition(s1.getCondition(), "A 'for' loop can only evaluate a numeric expression");
+                if (s1.getIterator() != null)
+                    scan(s1.getIterator());
+                scanBody(s1.getScope(), () -> {
+                    loopDepth--;
+                    pop();
+                });
+                return null;
+            }
 
-        for (NodeFunction function: this.program.getNodeFunctions()) {
-            String funcName = function.getFunctionName();
-            if (funcCallCounts.keySet().contains(funcName)) {
-                Integer oldVal = funcCallCounts.get(funcName);
-                funcCallCounts.put(funcName, oldVal + 1);
-            } else {
-                funcCallCounts.put(funcName, 1);
+            public Void visitLoop(NodeLoop s1) {
+                if (s1.getCount() != null) {
+                    Integer realCount = Integer.parseInt(s1.getCount());
+                    if (realCount <= 0)
+                        Error.handleError("VERIFIER", "Can't provide a non-natural number as a loop count specifier");
+                }
+
+                push();
+                loopDepth++;
+                ITcount++;
+                s1.setDepth(ITcount);
+                scanBody(s1.getScope(), () -> {
+                    ITcount--;
+                    loopDepth--;
+                    pop();
+                });
+                return null;
             }
-        }
 
-        for (String name: funcCallCounts.keySet()) {
-            if (funcCallCounts.get(name) > 1)
-                Error.handleError("VERIFIER", "You have multiple functions with the name: " + name);
-        }
+            public Void visitContinue(NodeContinue continueStatement) {
+                if (loopDepth <= 0)
+                    Error.handleError("VERIFIER", "A 'continue' statement may only be used in a loop");
+                return null;
+            }
 
-    }
+            public Void visitBreak(NodeBreak breakStatement) {
+                if (loopDepth <= 0)
+                    Error.handleError("VERIFIER", "A 'break' statement may only be used in a loop");
+                return null;
+            }
 
-    public void checkVariable(String variable) {
-        if (this.configSettings.containsKey("SNAKE-CASE") && this.configSettings.get("SNAKE-CASE").equals("true")) {
-            if (!Pattern.compile("^[a-z]+(_[a-z]+)*$").matcher(variable).find())
-                Error.minorError("CONFIG-SPECIFIC", "Variable '" + variable + "' isn't snake_case");
-        }
+            // Calls are the only expressions that stand as statements
+            public Void visitBinary(BinaryExpression binary) { throw notChecked(binary); }
+            public Void visitUnary(UnaryExpression unary) { throw notChecked(unary); }
+            public Void visitArrayAccess(ArrayAccess access) { throw notChecked(access); }
+            public Void visitArray(ArrayExpression array) { throw notChecked(array); }
+            public Void visitChar(CharExpression character) { throw notChecked(character); }
+            public Void visitIdent(IdentExpression ident) { throw notChecked(ident); }
+            public Void visitIntLit(IntLitExpression intLit) { throw notChecked(intLit); }
+            public Void visitIt(ItExpression it) { throw notChecked(it); }
+            public Void visitNegation(NegationExpression negation) { throw notChecked(negation); }
+            public Void visitParen(ParenExpression paren) { throw notChecked(paren); }
+            public Void visitString(StringExpression string) { throw notChecked(string); }
+
+            private IllegalStateException notChecked(NodeView view) {
+                return new IllegalStateException("Checking a " + view.getArena().kind(view.getNode()) + " node as a statement");
+            }
 
-        if (this.configSettings.containsKey("CAMEL-CASE") && this.configSettings.get("CAMEL-CASE").equals("true")) {
-            if (!Pattern.compile("^[a-z]+([A-Z][a-z]+)*$").matcher(variable).find())
-                Error.minorError("CONFIG-SPECIFIC", "Variable '" + variable + "' isn't camelCase");
         }
-    } 
 
-    public void verify() {
-        checkOneMain();
-        checkDuplicateFunctions();
-        typeChecker();
     }
 
 }
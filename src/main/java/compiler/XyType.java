@@ -0,0 +1,125 @@
+package compiler;
+import java.util.Arrays;
+
+// A type as the verifier works it out. Every type is made once and shared, so types are compared with ==.
+// Array types are made the first time something asks for one, and each type has a small id so it fits in
+// an AstArena's data slot. Names are the ones diagnostics print, like array|numeric
+public final class XyType {
+
+    private static XyType[] byId = new XyType[16];
+    private static int count = 0;
+
+    public static final XyType NUMERIC = new XyType("numeric", null, "int", "%d");
+    public static final XyType STR = new XyType("str", null, "char *", "%s");
+    public static final XyType CHAR = new XyType("char", null, "char", "%c");
+    public static final XyType VOID = new XyType("void", null, "void", null);
+    public static final XyType ANY = new XyType("any", null, null, null); // Elements of an empty array
+    public static final XyType IT = new XyType("it", null, "int", "%d"); // A loop's counter, numeric inside one
+
+    private final String name;
+    private final XyType element;
+    private final String c; // C type of a value, null for arrays, see declare, and any
+    private final String format; // printf conversion for a value, null when it's not printed as one
+    private final int id;
+    private volatile XyType array = null;
+
+    private XyType(String name, XyType element, String c, String format) {
+        this.name = name;
+        this.element = element;
+        this.c = c;
+        this.format = format;
+        synchronized (XyType.class) {
+            if (count == byId.length)
+                byId = Arrays.copyOf(byId, count * 2);
+            this.id = count;
+            byId[count++] = this;
+        }
+    }
+
+    // The type a declaration's type token names, int, bool, str, char, void or arr<T> of one of them
+    public static XyType of(Token type) {
+        if (type.getType() == TokenType.VOID)
+            return VOID;
+        XyType t;
+        switch (type.getValue()) {
+            case "int":
+            case "bool":
+                t = NUMERIC;
+                break;
+            case "str":
+                t = STR;
+                break;
+            case "char":
+                t = CHAR;
+                break;
+            default:
+                throw new IllegalStateException("No type named " + type.getValue());
+        }
+        return (type.getType() == TokenType.ARR) ? t.arrayOf() : t;
+    }
+
+    public static synchronized XyType byId(int id) {
+        return byId[id];
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    public XyType arrayOf() {
+        XyType a = array;
+        if (a != null)
+            return a;
+        synchronized (XyType.class) {
+            if (array == null)
+                array = new XyType("array|" + name, this, null, null);
+            return array;
+        }
+    }
+
+    public boolean isArray() {
+        return this.element != null;
+    }
+
+    // Null unless it's an array
+    public XyType getElement() {
+        return this.element;
+    }
+
+    public String getFormat() {
+        return this.format;
+    }
+
+    public String getC() {
+        return this.c;
+    }
+
+    // Whether a value of the given type can initialise a declaration of this type. An empty array
+    // literal's type ends in any, and it initialises anything
+    public boolean accepts(XyType value) {
+        XyType innermost = value;
+        while (innermost.element != null)
+            innermost = innermost.element;
+        return value == this || innermost == ANY;
+    }
+
+    // C declaration of a variable of this type, without the value, like 'char *name' or 'int name[]'
+    public String declare(String variable) {
+        if (element != null)
+            return element.declare(variable + "[]");
+        return c + (c.endsWith("*") ? "" : " ") + variable;
+    }
+
+    // C declaration of a parameter of this type. An array is passed as a pointer to its first element
+    public String declareParameter(String variable) {
+        if (element != null)
+            return element.c + " * " + variable;
+        return declare(variable);
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
@@ -0,0 +1,362 @@
+package compiler.nodes;
+
+import java.util.Arrays;
+
+import compiler.AstCache;
+import compiler.Token;
+import compiler.TokenBuffer;
+import compiler.TokenType;
+import compiler.nodes.expression_nodes.BinaryExpression;
+import compiler.nodes.expression_nodes.NodeExpression;
+import compiler.nodes.expression_nodes.UnaryExpression;
+import compiler.nodes.expression_nodes.term_nodes.ArrayAccess;
+import compiler.nodes.expression_nodes.term_nodes.ArrayExpression;
+import compiler.nodes.expression_nodes.term_nodes.CharExpression;
+import compiler.nodes.expression_nodes.term_nodes.FuncCallNode;
+import compiler.nodes.expression_nodes.term_nodes.IdentExpression;
+import compiler.nodes.expression_nodes.term_nodes.IntLitExpression;
+import compiler.nodes.expression_nodes.term_nodes.ItExpression;
+import compiler.nodes.expression_nodes.term_nodes.NegationExpression;
+import compiler.nodes.expression_nodes.term_nodes.NodeTerm;
+import compiler.nodes.expression_nodes.term_nodes.ParenExpression;
+import compiler.nodes.expression_nodes.term_nodes.StringExpression;
+import compiler.nodes.statement_nodes.NodeAssign;
+import compiler.nodes.statement_nodes.NodeLet;
+import compiler.nodes.statement_nodes.NodePrint;
+import compiler.nodes.statement_nodes.NodeReturn;
+import compiler.nodes.statement_nodes.NodeScan;
+import compiler.nodes.statement_nodes.NodeScope;
+import compiler.nodes.statement_nodes.NodeStatement;
+import compiler.nodes.statement_nodes.conditionals.NodeIf;
+import compiler.nodes.statement_nodes.conditionals.NodeIfPredicate;
+import compiler.nodes.statement_nodes.conditionals.NodeIfPredicateElif;
+import compiler.nodes.statement_nodes.conditionals.NodeIfPredicateElse;
+import compiler.nodes.statement_nodes.loops.NodeBreak;
+import compiler.nodes.statement_nodes.loops.NodeContinue;
+import compiler.nodes.statement_nodes.loops.NodeDo;
+import compiler.nodes.statement_nodes.loops.NodeFor;
+import compiler.nodes.statement_nodes.loops.NodeLoop;
+import compiler.nodes.statement_nodes.loops.NodeWhile;
+
+// Struct-of-arrays AST, one slot per node instead of one object per node.
+// A node's children are a run in the shared edge list, and its token is an index into the lexer's TokenBuffer
+// rather than a copy. The node classes are views built on demand by view(i)
+public class AstArena {
+
+    public static final int NONE = -1; // Missing child or token
+    public static final int UNSET = Integer.MIN_VALUE; // Data the verifier hasn't filled in yet
+
+    private static final NodeKind[] KINDS = NodeKind.values();
+
+    private final TokenBuffer source;
+
+    private byte[] kinds = new byte[256];
+    private int[] tokens = new int[256]; // Token index in the source buffer, or NONE
+    private int[] data = new int[256]; // Operator, flags or verifier annotations, depending on the kind
+    private int[] types = new int[256]; // Id of the XyType the verifier resolved for an expression, or UNSET
+    private int[] firstEdge = new int[257]; // Node i's children are edges[firstEdge[i]] until firstEdge[i + 1]
+    private int size = 0;
+
+    private int[] edges = new int[256];
+    private int edgeCount = 0;
+
+    // Children collected for nodes that are still being parsed, innermost last
+    private int[] pending = new int[64];
+    private int pendingCount = 0;
+
+    public AstArena(TokenBuffer source) {
+        this.source = source;
+    }
+
+    public TokenBuffer getTokens() {
+        return this.source;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    // Building, used by the parser
+
+    public int mark() {
+        return this.pendingCount;
+    }
+
+    // Drops everything pushed since the mark, for a parse that's being abandoned
+    public void reset(int mark) {
+        this.pendingCount = mark;
+    }
+
+    public void push(int child) {
+        if (pendingCount == pending.length)
+            pending = Arrays.copyOf(pending, Math.max(64, pendingCount * 2));
+        pending[pendingCount++] = child;
+    }
+
+    public int add(NodeKind kind, int token, int data, int... children) {
+        int mark = mark();
+        for (int child: children)
+            push(child);
+        return addList(kind, token, data, mark);
+    }
+
+    // Adds a node whose children are everything pushed since the mark was taken
+    public int addList(NodeKind kind, int token, int data, int mark) {
+        int count = pendingCount - mark;
+        reserve(1, count);
+        System.arraycopy(pending, mark, edges, edgeCount, count);
+        edgeCount += count;
+        pendingCount = mark;
+
+        kinds[size] = (byte) kind.ordinal();
+        tokens[size] = token;
+        this.data[size] = data;
+        types[size] = UNSET;
+        firstEdge[size + 1] = edgeCount;
+        return size++;
+    }
+
+    // Appends the nodes of an arena parsed separately over the same tokens, before the verifier has annotated it.
+    // Token indices carry over as they are, child slots move up by the returned offset
+    public int append(AstArena other) {
+        reserve(other.size, other.edgeCount);
+        int offset = size;
+        System.arraycopy(other.kinds, 0, kinds, size, other.size);
+        System.arraycopy(other.tokens, 0, tokens, size, other.size);
+        System.arraycopy(other.data, 0, data, size, other.size);
+        Arrays.fill(types, size, size + other.size, UNSET);
+        for (int i = 1; i <= other.size; i++)
+            firstEdge[size + i] = other.firstEdge[i] + edgeCount;
+        for (int i = 0; i < other.edgeCount; i++)
+            edges[edgeCount + i] = (other.edges[i] == NONE) ? NONE : other.edges[i] + offset;
+        size += other.size;
+        edgeCount += other.edgeCount;
+        return offset;
+    }
+
+    private void reserve(int nodes, int newEdges) {
+        if (size + nodes > kinds.length) {
+            int capacity = Math.max(Math.max(256, size * 2), size + nodes);
+            kinds = Arrays.copyOf(kinds, capacity);
+            tokens = Arrays.copyOf(tokens, capacity);
+            this.data = Arrays.copyOf(this.data, capacity);
+            types = Arrays.copyOf(types, capacity);
+            firstEdge = Arrays.copyOf(firstEdge, capacity + 1);
+        }
+        if (edgeCount + newEdges > edges.length)
+            edges = Arrays.copyOf(edges, Math.max(edges.length * 2, edgeCount + newEdges));
+    }
+
+    // Drops the spare capacity left over from growing
+    public void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        tokens = Arrays.copyOf(tokens, size);
+        data = Arrays.copyOf(data, size);
+        types = Arrays.copyOf(types, size);
+        firstEdge = Arrays.copyOf(firstEdge, size + 1);
+        edges = Arrays.copyOf(edges, edgeCount);
+        pending = new int[0];
+    }
+
+    // A freshly parsed arena, the verifier's annotations aren't kept. Children are written as
+    // distances back from their parent, which comes after them, so NONE needs no special case
+    public void writeTo(AstCache.Output out) {
+        out.writeVarInt(size);
+        out.writeBytes(kinds, size);
+        out.writeDeltas(tokens, size);
+        for (int i = 0; i < size; i++)
+            out.writeVarInt(data[i]);
+        for (int i = 0; i < size; i++) {
+            out.writeVarInt(childCount(i));
+            for (int e = firstEdge[i]; e < firstEdge[i + 1]; e++)
+                out.writeVarInt(i - edges[e]);
+        }
+    }
+
+    public static AstArena readFrom(AstCache.Input in, TokenBuffer source) {
+        AstArena arena = new AstArena(source);
+        int size = in.readCount();
+        arena.kinds = in.readBytes();
+        arena.tokens = in.readDeltas(size);
+        arena.data = new int[size];
+        for (int i = 0; i < size; i++)
+            arena.data[i] = in.readVarInt();
+        arena.types = new int[size];
+        Arrays.fill(arena.types, UNSET);
+        arena.firstEdge = new int[size + 1];
+        int[] edges = new int[Math.max(size, 1)];
+        int edgeCount = 0;
+        for (int i = 0; i < size; i++) {
+            int count = in.readCount();
+            if (edgeCount + count > edges.length)
+                edges = Arrays.copyOf(edges, Math.max(edges.length * 2, edgeCount + count));
+            for (int c = 0; c < count; c++) {
+                int child = i - in.readVarInt();
+                if (child < NONE || child >= i)
+                    throw new IllegalStateException("Corrupt cache entry");
+                edges[edgeCount++] = child;
+            }
+            arena.firstEdge[i + 1] = edgeCount;
+        }
+        if (arena.kinds.length != size)
+            throw new IllegalStateException("Corrupt cache entry");
+        arena.edges = Arrays.copyOf(edges, edgeCount);
+        arena.edgeCount = edgeCount;
+        arena.size = size;
+        arena.pending = new int[0];
+        return arena;
+    }
+
+    // Reading, used by the views
+
+    public NodeKind kind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    public int childCount(int node) {
+        return firstEdge[node + 1] - firstEdge[node];
+    }
+
+    public int child(int node, int i) {
+        return edges[firstEdge[node] + i];
+    }
+
+    public int data(int node) {
+        return this.data[node];
+    }
+
+    public void setData(int node, int value) {
+        this.data[node] = value;
+    }
+
+    public int type(int node) {
+        return this.types[node];
+    }
+
+    public void setType(int node, int type) {
+        this.types[node] = type;
+    }
+
+    public int tokenIndex(int node) {
+        return this.tokens[node];
+    }
+
+    // The node's token, rebuilt as a standalone Token
+    public Token token(int node) {
+        return (tokens[node] == NONE) ? null : source.token(tokens[node]);
+    }
+
+    // Index of the earliest token under node, or NONE. Bodies are left out, so for a statement it's where
+    // the statement itself starts as near as the tree records it
+    public int firstToken(int node) {
+        int first = NONE;
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int next = stack[--top];
+            if (next == NONE || (next != node && kind(next) == NodeKind.SCOPE))
+                continue;
+            if (tokens[next] != NONE && (first == NONE || tokens[next] < first))
+                first = tokens[next];
+            int count = childCount(next);
+            if (top + count > stack.length)
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + count));
+            for (int i = 0; i < count; i++)
+                stack[top++] = child(next, i);
+        }
+        return first;
+    }
+
+    // Value and symbol straight from the buffer, without working out a line and column
+    public String value(int node) {
+        return source.value(tokens[node]);
+    }
+
+    public int symbol(int node) {
+        return source.symbol(tokens[node]);
+    }
+
+    // Type token of a declaration. For arr<T> the element type written between the brackets is its value
+    public Token declaredType(int index) {
+        Token type = source.token(index);
+        if (type.getType() == TokenType.ARR)
+            type.setValue(source.value(index + 2));
+        return type;
+    }
+
+    public NodeView view(int node) {
+        if (node == NONE)
+            return null;
+        switch (kind(node)) {
+            case FUNCTION: return new NodeFunction(this, node);
+            case PARAMETERS: return new NodeParameters(this, node);
+            case BINARY: return new BinaryExpression(this, node);
+            case UNARY: return new UnaryExpression(this, node);
+            case ARRAY_ACCESS: return new ArrayAccess(this, node);
+            case ARRAY: return new ArrayExpression(this, node);
+            case CHAR: return new CharExpression(this, node);
+            case FUNC_CALL: return new FuncCallNode(this, node);
+            case IDENT: return new IdentExpression(this, node);
+            case INT_LIT: return new IntLitExpression(this, node);
+            case IT: return new ItExpression(this, node);
+            case NEGATION: return new NegationExpression(this, node);
+            case PAREN: return new ParenExpression(this, node);
+            case STRING: return new StringExpression(this, node);
+            case ASSIGN: return new NodeAssign(this, node);
+            case LET: return new NodeLet(this, node);
+            case PRINT: return new NodePrint(this, node);
+            case RETURN: return new NodeReturn(this, node);
+            case SCAN: return new NodeScan(this, node);
+            case SCOPE: return new NodeScope(this, node);
+            case IF: return new NodeIf(this, node);
+            case ELIF: return new NodeIfPredicateElif(this, node);
+            case ELSE: return new NodeIfPredicateElse(this, node);
+            case BREAK: return new NodeBreak(this, node);
+            case CONTINUE: return new NodeContinue(this, node);
+            case DO: return new NodeDo(this, node);
+            case FOR: return new NodeFor(this, node);
+            case LOOP: return new NodeLoop(this, node);
+            case WHILE: return new NodeWhile(this, node);
+            default: throw new IllegalStateException("No view for a lone " + kind(node) + " node");
+        }
+    }
+
+    public Visitable visitable(int node) {
+        return (Visitable) view(node);
+    }
+
+    public NodeExpression expression(int node) {
+        return (NodeExpression) view(node);
+    }
+
+    public NodeTerm term(int node) {
+        return (NodeTerm) view(node);
+    }
+
+    public NodeStatement statement(int node) {
+        return (NodeStatement) view(node);
+    }
+
+    public NodeScope scope(int node) {
+        return (NodeScope) view(node);
+    }
+
+    public NodeIfPredicate predicate(int node) {
+        return (NodeIfPredicate) view(node);
+    }
+
+    // Typed child lookups, NONE children come back as null
+    public NodeExpression expression(int node, int i) {
+        return expression(child(node, i));
+    }
+
+    public NodeStatement statement(int node, int i) {
+        return statement(child(node, i));
+    }
+
+    public NodeScope scope(int node, int i) {
+        return scope(child(node, i));
+    }
+
+}
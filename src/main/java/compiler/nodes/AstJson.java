@@ -0,0 +1,111 @@
+package compiler.nodes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import compiler.TokenBuffer;
+import compiler.TokenType;
+
+// Writes the tree as JSON for tools that want it without parsing the text dump. Every node is an object
+// with its "kind", its "token" if it has one, a few fields depending on the kind, and its "children"
+// in order. A child's position says what it is, so a slot the source left out is written as null rather
+// than dropped: an IF or ELIF without an else, a FOR's initializer, condition or iterator, the value of a
+// bare return, and the operand of ++ and --, which is the variable the ASSIGN around them names. Written
+// as it's walked, like AstPrinter
+public class AstJson {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final AstArena arena;
+    private final TokenBuffer tokens;
+    private final Appendable out;
+
+    // What's still to write, next last: a node as its Integer slot or text as a String
+    private final ArrayList<Object> work = new ArrayList<>();
+
+    public AstJson(AstArena arena, Appendable out) {
+        this.arena = arena;
+        this.tokens = arena.getTokens();
+        this.out = out;
+    }
+
+    // The program's functions, one to a line, in an array
+    public void write(NodeProgram program) throws IOException {
+        out.append('[');
+        boolean first = true;
+        for (NodeFunction function: program.getNodeFunctions()) {
+            out.append(first ? "\n" : ",\n");
+            write(function.getNode());
+            first = false;
+        }
+        out.append("\n]");
+    }
+
+    public void write(int node) throws IOException {
+        work.add(item(node));
+        while (!work.isEmpty()) {
+            Object next = work.remove(work.size() - 1);
+            if (next instanceof Integer)
+                expand((Integer) next);
+            else
+                out.append((String) next);
+        }
+    }
+
+    // Writes the node's own fields and queues its children after them
+    private void expand(int node) throws IOException {
+        NodeKind kind = arena.kind(node);
+        int data = arena.data(node);
+        out.append("{\"kind\": \"").append(kind.name()).append('"');
+        if (arena.tokenIndex(node) != AstArena.NONE)
+            token("token", arena.tokenIndex(node));
+        switch (kind) {
+            case FUNCTION:
+                token("returns", data);
+                break;
+            case PARAMETER:
+                declaration(data >> 1, (data & 1) == 1);
+                break;
+            case LET:
+            case SCAN:
+                declaration(data >> 1, (data & 1) == 0); // The flag is constant for variables
+                break;
+            case BINARY:
+            case UNARY:
+                out.append(", \"operator\": \"").append(TYPES[data].name()).append('"');
+                break;
+            case FUNC_CALL:
+                out.append(", \"statement\": ").append((data == 1) ? "true" : "false");
+                break;
+            default:
+                break;
+        }
+        out.append(", \"children\": [");
+
+        int count = arena.childCount(node);
+        work.add("]}");
+        for (int i = count - 1; i >= 0; i--) {
+            work.add(item(arena.child(node, i)));
+            if (i > 0)
+                work.add(", ");
+        }
+    }
+
+    // Type token of a declaration, with the element type after it for arr<T>
+    private void declaration(int typeAt, boolean mutable) throws IOException {
+        token("declared", typeAt);
+        if (tokens.type(typeAt) == TokenType.ARR)
+            token("element", typeAt + 2);
+        out.append(", \"mutable\": ").append(mutable ? "true" : "false");
+    }
+
+    private void token(String field, int index) throws IOException {
+        out.append(", \"").append(field).append("\": ");
+        tokens.writeJson(index, out);
+    }
+
+    private Object item(int node) {
+        return (node == AstArena.NONE) ? "null" : (Object) node;
+    }
+
+}
@@ -0,0 +1,407 @@
+package compiler.nodes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+import compiler.Token;
+import compiler.TokenType;
+import compiler.nodes.expression_nodes.BinaryExpression;
+import compiler.nodes.expression_nodes.UnaryExpression;
+import compiler.nodes.expression_nodes.term_nodes.ArrayAccess;
+import compiler.nodes.expression_nodes.term_nodes.ArrayExpression;
+import compiler.nodes.expression_nodes.term_nodes.CharExpression;
+import compiler.nodes.expression_nodes.term_nodes.FuncCallNode;
+import compiler.nodes.expression_nodes.term_nodes.IdentExpression;
+import compiler.nodes.expression_nodes.term_nodes.IntLitExpression;
+import compiler.nodes.expression_nodes.term_nodes.ItExpression;
+import compiler.nodes.expression_nodes.term_nodes.NegationExpression;
+import compiler.nodes.expression_nodes.term_nodes.ParenExpression;
+import compiler.nodes.expression_nodes.term_nodes.StringExpression;
+import compiler.nodes.statement_nodes.NodeAssign;
+import compiler.nodes.statement_nodes.NodeLet;
+import compiler.nodes.statement_nodes.NodePrint;
+import compiler.nodes.statement_nodes.NodeReturn;
+import compiler.nodes.statement_nodes.NodeScan;
+import compiler.nodes.statement_nodes.NodeScope;
+import compiler.nodes.statement_nodes.conditionals.NodeIf;
+import compiler.nodes.statement_nodes.conditionals.NodeIfPredicateElif;
+import compiler.nodes.statement_nodes.conditionals.NodeIfPredicateElse;
+import compiler.nodes.statement_nodes.loops.NodeBreak;
+import compiler.nodes.statement_nodes.loops.NodeContinue;
+import compiler.nodes.statement_nodes.loops.NodeDo;
+import compiler.nodes.statement_nodes.loops.NodeFor;
+import compiler.nodes.statement_nodes.loops.NodeLoop;
+import compiler.nodes.statement_nodes.loops.NodeWhile;
+
+// Writes the text the parser dump shows for a subtree straight to its output, as it walks the tree.
+// Nested bodies are indented by keeping the indentation as state, every newline written inside a body
+// is followed by it, so no node's text is built up and then copied into its parent's
+public class AstPrinter implements NodeVisitor<Void> {
+
+    private static final String SPACES = " ".repeat(64);
+
+    // Operators as they're printed between a binary expression's operands, by TokenType ordinal
+    private static final String[] OPERATORS = new String[TokenType.values().length];
+
+    static {
+        operator(TokenType.PLUS, " + ");
+        operator(TokenType.DASH, " - ");
+        operator(TokenType.STAR, " * ");
+        operator(TokenType.F_SLASH, " / ");
+        operator(TokenType.GREATER_EQ, " >= ");
+        operator(TokenType.GREATER_THAN, " > ");
+        operator(TokenType.LESS_THAN, " < ");
+        operator(TokenType.LESS_EQ, " <= ");
+        operator(TokenType.EQUAL, " == ");
+        operator(TokenType.NOT_EQUAL, " != ");
+        operator(TokenType.AND_LOGIC, " && ");
+        operator(TokenType.OR_LOGIC, " || ");
+        operator(TokenType.PERCENT, " % ");
+        operator(TokenType.BITWISE_AND, " & ");
+        operator(TokenType.BITWISE_OR, " | ");
+        operator(TokenType.BITWISE_XOR, " ^ ");
+        operator(TokenType.BITWISE_LEFT_SHIFT, " << ");
+        operator(TokenType.BITWISE_RIGHT_SHIFT, " >> ");
+    }
+
+    private static void operator(TokenType type, String text) {
+        OPERATORS[type.ordinal()] = text;
+    }
+
+    // A change to the indentation, queued around a body
+    private static final class Indent {
+        private final int by;
+
+        Indent(int by) {
+            this.by = by;
+        }
+    }
+
+    private static final Indent IN_3 = new Indent(3);
+    private static final Indent OUT_3 = new Indent(-3);
+    private static final Indent IN_4 = new Indent(4);
+    private static final Indent OUT_4 = new Indent(-4);
+
+    private final AstArena arena;
+    private final Appendable out;
+    private int indent = 0;
+
+    // What's still to print, next last: a node as its Integer slot, text as a String, or an Indent
+    private final ArrayList<Object> work = new ArrayList<>();
+
+    public AstPrinter(AstArena arena, Appendable out) {
+        this.arena = arena;
+        this.out = out;
+    }
+
+    // Text of the subtree under node, what its view's toString gives
+    public static String toString(AstArena arena, int node) {
+        StringBuilder text = new StringBuilder();
+        try {
+            new AstPrinter(arena, text).print(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // A StringBuilder doesn't throw
+        }
+        return text.toString();
+    }
+
+    public void print(int node) throws IOException {
+        work.add(item(node));
+        while (!work.isEmpty()) {
+            Object next = work.remove(work.size() - 1);
+            if (next instanceof Integer)
+                expand((Integer) next);
+            else if (next instanceof Indent)
+                indent += ((Indent) next).by;
+            else
+                write((String) next);
+        }
+    }
+
+    // Queues what a node prints as, in order. Missing children print as "null", except where a node
+    // checks for them and prints "{}" instead
+    private void expand(int node) {
+        arena.visitable(node).accept(this);
+    }
+
+    public Void visitFunction(NodeFunction function) {
+        Token returnType = function.getReturnType();
+        String returns = returnType.getType().equals(TokenType.VOID) ? "void" : returnType.getValue().toLowerCase();
+        then("define " + function.getFunctionName() + " (" + function.getParameters() + ") -> " + returns + "\n",
+            item(function.getBody()), "\nenddefine\n");
+        return null;
+    }
+
+    // A bare '{}' statement leaves its scope holding a missing statement, which prints as nothing
+    public Void visitScope(NodeScope scope) {
+        int node = scope.getNode();
+        int count = arena.childCount(node);
+        Object[] items = new Object[count * 2 + 1];
+        for (int i = 0; i < count; i++) {
+            if (missing(node, i))
+                continue;
+            items[2 * i] = "\n    ";
+            items[2 * i + 1] = child(node, i);
+        }
+        items[count * 2] = "\n";
+        then(items);
+        return null;
+    }
+
+    public Void visitIf(NodeIf ifStatement) {
+        int node = ifStatement.getNode();
+        if (missing(node, 0) || missing(node, 1))
+            then("{}");
+        else if (missing(node, 2))
+            then("if ", child(node, 0), " ", IN_4, child(node, 1), OUT_4);
+        else
+            then("if ", child(node, 0), " ", IN_3, child(node, 1), OUT_3, " ", child(node, 2));
+        return null;
+    }
+
+    public Void visitElif(NodeIfPredicateElif elif) {
+        int node = elif.getNode();
+        if (missing(node, 0) || missing(node, 1))
+            then("{}");
+        else if (missing(node, 2))
+            then("else if ", child(node, 0), " ", IN_3, child(node, 1), OUT_3);
+        else
+            then("else if ", child(node, 0), " ", IN_3, child(node, 1), OUT_3, " ", child(node, 2));
+        return null;
+    }
+
+    public Void visitElse(NodeIfPredicateElse elseStatement) {
+        int node = elseStatement.getNode();
+        if (missing(node, 0))
+            then("{}");
+        else
+            then("else ", IN_4, child(node, 0), OUT_4);
+        return null;
+    }
+
+    public Void visitWhile(NodeWhile whileStatement) {
+        int node = whileStatement.getNode();
+        if (missing(node, 0) || missing(node, 1))
+            then("{}");
+        else
+            then("while ", child(node, 0), " ", IN_4, child(node, 1), OUT_4);
+        return null;
+    }
+
+    public Void visitDo(NodeDo doStatement) {
+        int node = doStatement.getNode();
+        if (missing(node, 0) || missing(node, 1))
+            then("{}");
+        else
+            then("do ", IN_3, child(node, 1), OUT_3, " while ", child(node, 0));
+        return null;
+    }
+
+    public Void visitFor(NodeFor forStatement) {
+        int node = forStatement.getNode();
+        then("for (", optional(node, 0), "; ", optional(node, 1), "; ", optional(node, 2), ") ",
+            IN_4, child(node, 3), OUT_4);
+        return null;
+    }
+
+    public Void visitLoop(NodeLoop loop) {
+        int node = loop.getNode();
+        String count = loop.getCount();
+        if (missing(node, 0))
+            then("{}");
+        else
+            then((count == null) ? "loop" : "loop " + count, IN_4, child(node, 0), OUT_4);
+        return null;
+    }
+
+    public Void visitAssign(NodeAssign assign) {
+        int node = assign.getNode();
+        if (missing(node, 0) || missing(node, 1))
+            then("{}");
+        else if (arena.kind(arena.child(node, 1)) == NodeKind.BINARY)
+            then(child(node, 0), " = ", child(node, 1));
+        else
+            then(child(node, 0), child(node, 1));
+        return null;
+    }
+
+    public Void visitLet(NodeLet let) {
+        int node = let.getNode();
+        if (missing(node, 0))
+            then("{}");
+        else
+            then("let " + let.getName() + " = ", child(node, 0));
+        return null;
+    }
+
+    public Void visitPrint(NodePrint print) {
+        int node = print.getNode();
+        if (missing(node, 0))
+            then("{}");
+        else
+            then("out ", child(node, 0));
+        return null;
+    }
+
+    public Void visitReturn(NodeReturn ret) {
+        int node = ret.getNode();
+        if (missing(node, 0))
+            then("return");
+        else
+            then("return ", child(node, 0));
+        return null;
+    }
+
+    public Void visitBinary(BinaryExpression binary) {
+        int node = binary.getNode();
+        String operator = OPERATORS[arena.data(node)];
+        if (operator == null)
+            then("{}");
+        else
+            then(child(node, 0), operator, child(node, 1));
+        return null;
+    }
+
+    public Void visitUnary(UnaryExpression unary) {
+        int node = unary.getNode();
+        switch (unary.getOperator()) {
+            case PLUS_EQUAL: then(" += ", child(node, 0)); break;
+            case DASH_EQUAL: then(" -= ", child(node, 0)); break;
+            case STAR_EQUAL: then(" *= ", child(node, 0)); break;
+            case F_SLASH_EQUAL: then(" /= ", child(node, 0)); break;
+            case INCREMENT: then("++"); break;
+            case DECREMENT: then("--"); break;
+            default: break;
+        }
+        return null;
+    }
+
+    public Void visitArrayAccess(ArrayAccess access) {
+        int node = access.getNode();
+        then(access.getValue() + "[", child(node, 0), "]");
+        return null;
+    }
+
+    public Void visitArray(ArrayExpression array) {
+        list(array.getNode(), "[", "]");
+        return null;
+    }
+
+    public Void visitFuncCall(FuncCallNode call) {
+        list(call.getNode(), call.getFunctionName() + "(", ")");
+        return null;
+    }
+
+    // Children separated by commas between open and close
+    private void list(int node, String open, String close) {
+        int count = arena.childCount(node);
+        Object[] items = new Object[Math.max(count * 2, 1) + 1];
+        items[0] = open;
+        for (int i = 0; i < count; i++) {
+            items[2 * i + 1] = child(node, i);
+            if (i != count - 1)
+                items[2 * i + 2] = ", ";
+        }
+        items[items.length - 1] = close;
+        then(items);
+    }
+
+    public Void visitNegation(NegationExpression negation) {
+        int node = negation.getNode();
+        if (missing(node, 0))
+            then("{}");
+        else
+            then("!", child(node, 0));
+        return null;
+    }
+
+    public Void visitParen(ParenExpression paren) {
+        int node = paren.getNode();
+        if (missing(node, 0))
+            then("{}");
+        else
+            then("(", child(node, 0), ")");
+        return null;
+    }
+
+    // Leaves know their own text
+
+    public Void visitScan(NodeScan scan) {
+        then(scan.toString());
+        return null;
+    }
+
+    public Void visitBreak(NodeBreak breakStatement) {
+        then(breakStatement.toString());
+        return null;
+    }
+
+    public Void visitContinue(NodeContinue continueStatement) {
+        then(continueStatement.toString());
+        return null;
+    }
+
+    public Void visitChar(CharExpression character) {
+        then(character.toString());
+        return null;
+    }
+
+    public Void visitIdent(IdentExpression ident) {
+        then(ident.toString());
+        return null;
+    }
+
+    public Void visitIntLit(IntLitExpression intLit) {
+        then(intLit.toString());
+        return null;
+    }
+
+    public Void visitIt(ItExpression it) {
+        then(it.toString());
+        return null;
+    }
+
+    public Void visitString(StringExpression string) {
+        then(string.toString());
+        return null;
+    }
+
+    // Queues items to come out in the order given. Nulls are skipped
+    private void then(Object... items) {
+        for (int i = items.length - 1; i >= 0; i--) {
+            if (items[i] != null)
+                work.add(items[i]);
+        }
+    }
+
+    private Object item(int node) {
+        return (node == AstArena.NONE) ? "null" : (Object) node;
+    }
+
+    private Object child(int node, int i) {
+        return item(arena.child(node, i));
+    }
+
+    // A missing child of a for loop's header prints as nothing
+    private Object optional(int node, int i) {
+        return missing(node, i) ? "" : child(node, i);
+    }
+
+    private boolean missing(int node, int i) {
+        return arena.child(node, i) == AstArena.NONE;
+    }
+
+    private void write(String text) throws IOException {
+        int from = 0;
+        int newline;
+        while ((newline = text.indexOf('\n', from)) != -1) {
+            out.append(text, from, newline + 1);
+            for (int left = indent; left > 0; left -= SPACES.length())
+                out.append(SPACES, 0, Math.min(left, SPACES.length()));
+            from = newline + 1;
+        }
+        out.append(text, from, text.length());
+    }
+
+}
@@ -1,67 +1,46 @@
 package compiler.nodes;
 
-import compiler.Generator;
 import compiler.Token;
-import compiler.TokenType;
 import compiler.nodes.statement_nodes.NodeScope;
-import compiler.nodes.statement_nodes.NodeStatement;
 
-public class NodeFunction {
+public class NodeFunction extends NodeView implements Visitable {
     
-    private String functionName = null;
-    private NodeScope statements = null;
-    private NodeParameters parameters = null;
-    private Token returnType = null;
-
-    public NodeFunction(NodeScope statements, String functionName, Token returnType, NodeParameters parameters) {
-        this.statements = statements;
-        this.functionName = functionName;
-        this.returnType = returnType;
-        this.parameters = parameters;
+    // Token is the function's name, data the index of its return type token.
+    // Children are the parameter list then the body
+    public NodeFunction(AstArena arena, int node) {
+        super(arena, node);
     }
 
-    public NodeFunction() {}
+    public NodeParameters getParameters() {
+        return new NodeParameters(arena, arena.child(node, 0));
+    }
 
-    @Override
-    public String toString() {
-        if (returnType.getType().equals(TokenType.VOID))
-            return String.format("define %s (%s) -> void\n%s\nenddefine\n", functionName, parameters.toString(), statements.toString());
-        return String.format("define %s (%s) -> %s\n%s\nenddefine\n", functionName, parameters.toString(), returnType.getValue().toString().toLowerCase(), statements.toString());
+    public NodeScope getStatements() {
+        return arena.scope(getBody());
     }
 
-    public void appendStatement(NodeStatement s) {
-        this.statements.addStatement(s);
+    public int getBody() {
+        return arena.child(node, 1);
     }
 
-    public NodeParameters getParameters() {
-        return this.parameters;
+    public String getFunctionName() {
+        return arena.value(node);
     }
 
-    public NodeScope getStatements() {
-        return this.statements;
+    public Token getIdentifier() {
+        return arena.token(node);
     }
 
-    public String getFunctionName() {
-        return this.functionName;
+    public int getSymbol() {
+        return arena.symbol(node);
     }
 
     public Token getReturnType() {
-        return this.returnType;
+        return arena.getTokens().token(arena.data(node));
     }
 
-    public void operator(Generator generator) {
-        generator.setCurrentFunction(this);
-        String returnValue = (returnType.getValue() == null) ? "void" : returnType.getValue().toString().toLowerCase();
-        if (returnValue.equals("str"))
-            returnValue = "char *";
-        if (returnValue.equals("bool"))
-            returnValue = "int";
-
-        String funcDefinition = String.format("%s %s(%s)\n", returnValue, functionName, parameters.toString());
-        generator.appendContents(funcDefinition);
-        statements.operator(generator);
-
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitFunction(this);
     }
 
-
 }
@@ -0,0 +1,40 @@
+package compiler.nodes;
+
+// Kind of each slot in an AstArena, one per node class
+public enum NodeKind {
+    // Declarations
+    FUNCTION,
+    PARAMETERS,
+    PARAMETER,
+
+    // Expressions
+    BINARY,
+    UNARY,
+    ARRAY_ACCESS,
+    ARRAY,
+    CHAR,
+    FUNC_CALL,
+    IDENT,
+    INT_LIT,
+    IT,
+    NEGATION,
+    PAREN,
+    STRING,
+
+    // Statements
+    ASSIGN,
+    LET,
+    PRINT,
+    RETURN,
+    SCAN,
+    SCOPE,
+    IF,
+    ELIF,
+    ELSE,
+    BREAK,
+    CONTINUE,
+    DO,
+    FOR,
+    LOOP,
+    WHILE
+}
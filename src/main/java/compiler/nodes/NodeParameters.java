@@ -1,43 +1,47 @@
 package compiler.nodes;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 
 import compiler.Token;
-import compiler.TokenType;
+import compiler.XyType;
 
-public class NodeParameters {
+public class NodeParameters extends NodeView {
     
-    // String is the var name, TokenType the type naturally
-    private LinkedHashMap<String, Token> variables = new LinkedHashMap<>(); 
-    private ArrayList<Boolean> mutable = new ArrayList<>();
+    // Children are one PARAMETER node per parameter in declaration order. Each keeps the identifier as its token,
+    // and as data the index of its type token shifted up one bit, with the low bit set when mutable
+    public NodeParameters(AstArena arena, int node) {
+        super(arena, node);
+    }
 
-    public NodeParameters() {}
-    
-    public void addVariable(String name, Token type, boolean isMutable) {
-        this.variables.put(name, type);
-        this.mutable.add(isMutable);
+    public int size() {
+        return arena.childCount(node);
+    }
+
+    public Token getIdentifier(int i) {
+        return arena.token(arena.child(node, i));
+    }
+
+    public String getName(int i) {
+        return arena.value(arena.child(node, i));
+    }
+
+    public int getSymbol(int i) {
+        return arena.symbol(arena.child(node, i));
     }
 
-    public LinkedHashMap<String, Token> getVariables() {
-        return this.variables;
+    public Token getType(int i) {
+        return arena.declaredType(arena.data(arena.child(node, i)) >> 1);
     }
 
     public Boolean isMutable(Integer i) {
-        return mutable.get(i);
+        return (arena.data(arena.child(node, i)) & 1) == 1;
     }
 
     @Override
     public String toString() {
         ArrayList<String> vars = new ArrayList<>();
-        for (String x: variables.keySet()) {
-            boolean isArr = variables.get(x).getType().equals(TokenType.ARR);
-            String var = variables.get(x).getValue().toString().toLowerCase();
-            if (var.equals("str")) var = "char*";
-            if (isArr)
-                var = var.concat(" *");
-            vars.add(String.format("%s %s", var, x));
-        }
+        for (int i = 0; i < size(); i++)
+            vars.add(XyType.of(getType(i)).declareParameter(getName(i)));
         return String.join(", ", vars);
     }
 
@@ -6,13 +6,12 @@ import java.util.ArrayList;
 public class NodeProgram {
     
     private ArrayList<NodeFunction> functions = new ArrayList<>();
+    private final AstArena arena; // Holds the bodies of every function
 
-    public NodeProgram(ArrayList<NodeFunction> functions) {
-        this.functions = functions;
+    public NodeProgram(AstArena arena) {
+        this.arena = arena;
     }
 
-    public NodeProgram() {}
-
     public void appendFunction(NodeFunction f) {
         this.functions.add(f);
     }
@@ -20,4 +19,8 @@ public class NodeProgram {
     public ArrayList<NodeFunction> getNodeFunctions() {
         return this.functions;
     }
+
+    public AstArena getArena() {
+        return this.arena;
+    }
 }
@@ -0,0 +1,29 @@
+package compiler.nodes;
+
+// Base of every AST node, a typed handle onto one slot of an AstArena.
+// Views hold no state of their own so they can be made and dropped freely
+public abstract class NodeView {
+
+    protected final AstArena arena;
+    protected final int node;
+
+    protected NodeView(AstArena arena, int node) {
+        this.arena = arena;
+        this.node = node;
+    }
+
+    public AstArena getArena() {
+        return this.arena;
+    }
+
+    public int getNode() {
+        return this.node;
+    }
+
+    // Views with children print through AstPrinter, which streams the text without recursing. Leaves override this
+    @Override
+    public String toString() {
+        return AstPrinter.toString(arena, node);
+    }
+
+}
@@ -0,0 +1,70 @@
+package compiler.nodes;
+
+import compiler.nodes.expression_nodes.BinaryExpression;
+import compiler.nodes.expression_nodes.UnaryExpression;
+import compiler.nodes.expression_nodes.term_nodes.ArrayAccess;
+import compiler.nodes.expression_nodes.term_nodes.ArrayExpression;
+import compiler.nodes.expression_nodes.term_nodes.CharExpression;
+import compiler.nodes.expression_nodes.term_nodes.FuncCallNode;
+import compiler.nodes.expression_nodes.term_nodes.IdentExpression;
+import compiler.nodes.expression_nodes.term_nodes.IntLitExpression;
+import compiler.nodes.expression_nodes.term_nodes.ItExpression;
+import compiler.nodes.expression_nodes.term_nodes.NegationExpression;
+import compiler.nodes.expression_nodes.term_nodes.ParenExpression;
+import compiler.nodes.expression_nodes.term_nodes.StringExpression;
+import compiler.nodes.statement_nodes.NodeAssign;
+import compiler.nodes.statement_nodes.NodeLet;
+import compiler.nodes.statement_nodes.NodePrint;
+import compiler.nodes.statement_nodes.NodeReturn;
+import compiler.nodes.statement_nodes.NodeScan;
+import compiler.nodes.statement_nodes.NodeScope;
+import compiler.nodes.statement_nodes.conditionals.NodeIf;
+import compiler.nodes.statement_nodes.conditionals.NodeIfPredicateElif;
+import compiler.nodes.statement_nodes.conditionals.NodeIfPredicateElse;
+import compiler.nodes.statement_nodes.loops.NodeBreak;
+import compiler.nodes.statement_nodes.loops.NodeContinue;
+import compiler.nodes.statement_nodes.loops.NodeDo;
+import compiler.nodes.statement_nodes.loops.NodeFor;
+import compiler.nodes.statement_nodes.loops.NodeLoop;
+import compiler.nodes.statement_nodes.loops.NodeWhile;
+
+// A pass over the tree, one method per node class. Every node's accept calls straight into its own
+// method, so a pass never tests what it was given, and a new node class won't compile until every
+// pass says what to do with it. Visiting a node doesn't visit its children, a pass that needs them
+// queues them on its own work stack so nesting depth is limited by the heap and not the thread stack
+public interface NodeVisitor<R> {
+
+    public R visitFunction(NodeFunction function);
+
+    // Statements
+    public R visitAssign(NodeAssign assign);
+    public R visitLet(NodeLet let);
+    public R visitPrint(NodePrint print);
+    public R visitReturn(NodeReturn ret);
+    public R visitScan(NodeScan scan);
+    public R visitScope(NodeScope scope);
+    public R visitIf(NodeIf ifStatement);
+    public R visitElif(NodeIfPredicateElif elif);
+    public R visitElse(NodeIfPredicateElse elseStatement);
+    public R visitBreak(NodeBreak breakStatement);
+    public R visitContinue(NodeContinue continueStatement);
+    public R visitDo(NodeDo doStatement);
+    public R visitFor(NodeFor forStatement);
+    public R visitLoop(NodeLoop loop);
+    public R visitWhile(NodeWhile whileStatement);
+
+    // Expressions
+    public R visitBinary(BinaryExpression binary);
+    public R visitUnary(UnaryExpression unary);
+    public R visitArrayAccess(ArrayAccess access);
+    public R visitArray(ArrayExpression array);
+    public R visitChar(CharExpression character);
+    public R visitFuncCall(FuncCallNode call);
+    public R visitIdent(IdentExpression ident);
+    public R visitIntLit(IntLitExpression intLit);
+    public R visitIt(ItExpression it);
+    public R visitNegation(NegationExpression negation);
+    public R visitParen(ParenExpression paren);
+    public R visitString(StringExpression string);
+
+}
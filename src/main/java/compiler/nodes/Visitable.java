@@ -0,0 +1,8 @@
+package compiler.nodes;
+
+// Anything a NodeVisitor can be handed, functions, statements and expressions
+public interface Visitable {
+
+    public <R> R accept(NodeVisitor<R> visitor);
+
+}
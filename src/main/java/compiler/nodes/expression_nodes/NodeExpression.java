@@ -1,15 +1,27 @@
 package compiler.nodes.expression_nodes;
 
-import compiler.Generator;
-import compiler.Verifier;
-import compiler.Error;
+import compiler.XyType;
+import compiler.nodes.AstArena;
+import compiler.nodes.Visitable;
 
-public interface NodeExpression {
+public interface NodeExpression extends Visitable {
+
+    public AstArena getArena();
+
+    public int getNode();
+
+    // The type the verifier gave this expression where it stands, so an array access that's a whole
+    // expression has its element's type. Null until it's been verified
+    public default XyType getResolvedType() {
+        int type = getArena().type(getNode());
+        return (type == AstArena.UNSET) ? null : XyType.byId(type);
+    }
+
+    public default void setResolvedType(XyType type) {
+        getArena().setType(getNode(), type.getId());
+    }
     
     @Override
     public String toString();
 
-    public String getType(Verifier v, Error handler);
-
-    public void operator(Generator generator);
 }
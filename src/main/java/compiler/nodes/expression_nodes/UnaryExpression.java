@@ -1,71 +1,29 @@
 package compiler.nodes.expression_nodes;
 
-import compiler.Generator;
 import compiler.TokenType;
-import compiler.Verifier;
-import compiler.Error;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
 
-public class UnaryExpression implements NodeExpression {
+public class UnaryExpression extends NodeView implements NodeExpression {
     
-    private TokenType operator;
-    private NodeExpression expression = null;
+    private static final TokenType[] OPERATORS = TokenType.values();
 
-    public UnaryExpression(TokenType operator) {
-        this.operator = operator;
+    // Only child is the right hand side, missing for ++ and --. Data is the operator's ordinal
+    public UnaryExpression(AstArena arena, int node) {
+        super(arena, node);
     }
 
-    public UnaryExpression(TokenType operator, NodeExpression expression) {
-        this.operator = operator;
-        this.expression = expression;
+    public TokenType getOperator() {
+        return OPERATORS[arena.data(node)];
     }
 
-    public String getType(Verifier v, Error handler) {
-        if (expression != null)
-            expression.getType(v, handler);
-        return "numeric";
+    public NodeExpression getExpression() {
+        return arena.expression(node, 0);
     }
 
-    @Override
-    public String toString() {
-        switch (this.operator) {
-            case PLUS_EQUAL: 
-                return " += " + expression.toString();
-            case DASH_EQUAL: 
-                return " -= " + expression.toString();
-            case STAR_EQUAL: 
-                return " *= " + expression.toString();
-            case F_SLASH_EQUAL: 
-                return " /= " + expression.toString();
-            case INCREMENT:
-                return "++";
-            case DECREMENT:
-                return "--";
-            default:
-                break;
-        }
-        return "";
-    }
-
-    public void operator(Generator generator) {
-        switch (this.operator) {
-            case PLUS_EQUAL: 
-                generator.appendContents(" += ");
-                this.expression.operator(generator); break;
-            case DASH_EQUAL: 
-                generator.appendContents(" -= ");
-                this.expression.operator(generator); break;
-            case STAR_EQUAL: 
-                generator.appendContents(" *= ");
-                this.expression.operator(generator); break;
-            case F_SLASH_EQUAL: 
-                generator.appendContents(" /= ");
-                this.expression.operator(generator); break;
-            case INCREMENT:
-                generator.appendContents("++"); break;
-            case DECREMENT:
-                generator.appendContents("--"); break;
-            default: break;
-        }
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitUnary(this);
     }
 
 }
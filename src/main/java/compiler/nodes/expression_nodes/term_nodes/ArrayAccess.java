@@ -1,39 +1,39 @@
 package compiler.nodes.expression_nodes.term_nodes;
 
-import compiler.Generator;
 import compiler.Token;
-import compiler.Verifier;
-import compiler.Error;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.expression_nodes.NodeExpression;
 
 public class ArrayAccess extends NodeTerm implements Assignable {
     
-    private Token identifier;
-    private NodeExpression index;
+    // Token is the array's identifier, only child the index
+    public ArrayAccess(AstArena arena, int node) {
+        super(arena, node);
+    }
 
-    public ArrayAccess(Token identifier, NodeExpression index) {
-        this.identifier = identifier;
-        this.index = index;
+    public Token getIdentifier() {
+        return arena.token(node);
     }
 
-    public String getType(Verifier v, Error handler) {
-        return v.mapReturnTypes(v.getVariable(identifier.getValue()).getType());
+    public NodeExpression getIndex() {
+        return arena.expression(node, 0);
     }
 
-    @Override
-    public String toString() {
-        return String.format("%s[%s]", identifier.getValue(), index.toString());
+    private String getName() {
+        return arena.value(node);
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents(identifier.getValue());
-        generator.appendContents("[");
-        index.operator(generator);
-        generator.appendContents("]");
+    public int getSymbol() {
+        return arena.symbol(node);
     }
 
     public String convert() {
-        return String.format("%s[%s]", identifier.getValue(), index.toString());
+        return String.format("%s[%s]", getName(), getIndex().toString());
+    }
+
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitArrayAccess(this);
     }
 
 }
@@ -5,6 +5,7 @@ public interface Assignable {
     @Override 
     public String toString();
     public String convert();
+    public int getSymbol();
 
 
 }
@@ -1,29 +1,24 @@
 package compiler.nodes.expression_nodes.term_nodes;
 
-import compiler.Generator;
-import compiler.Token;
-import compiler.Error;
-import compiler.Verifier;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeVisitor;
 
 public class CharExpression extends NodeTerm {
     
-    public CharExpression(Token token) {
-        super(token);
-    }
-
-    public String getType(Verifier v, Error handler) {
-        return "char";
+    public CharExpression(AstArena arena, int node) {
+        super(arena, node);
     }
 
     @Override 
     public String toString() {
-        if (getToken() == null || getToken().getValue() == null)
+        String value = arena.value(node);
+        if (value == null)
             return "{}";
-        return getToken().getValue().toString();
+        return value;
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents(getToken().getValue());
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitChar(this);
     }
 
 }
@@ -1,47 +1,32 @@
 package compiler.nodes.expression_nodes.term_nodes;
 
-import compiler.Token;
-import compiler.Variable;
-import compiler.Verifier;
-import compiler.Generator;
-import compiler.Error;
-
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeVisitor;
 
 public class IdentExpression extends NodeTerm implements Assignable {
     
-    public IdentExpression(Token token) {
-        super(token); 
-    }
-
-    public IdentExpression() {
-        super();
+    public IdentExpression(AstArena arena, int node) {
+        super(arena, node);
     }
-    // should be handled specifically in Verifier class
-    public String getType(Verifier v, Error handler) {
-        String variableName = getToken().getValue();
-        Variable x = v.getVariable(variableName);
-
-        if (x == null)
-            handler.undeclaredVariable(variableName, getToken().getLine(), getToken().getCol());
 
-        x.setUsed();
-        return v.mapReturnTypes(x.getType());
-    }
     @Override
     public String toString() {
-        if (getToken() == null || getToken().getValue() == null)
+        String value = arena.value(node);
+        if (value == null)
             return "{}";
-        return String.format("%s", getToken().getValue().toString());
+        return String.format("%s", value);
     }
 
-    public void operator(Generator generator) {
-        String variableName = getToken().getValue();
-        generator.appendContents(variableName);
-
+    public int getSymbol() {
+        return arena.symbol(node);
     }
 
     public String convert() {
-        return getToken().getValue();
+        return arena.value(node);
+    }
+
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitIdent(this);
     }
 
 }
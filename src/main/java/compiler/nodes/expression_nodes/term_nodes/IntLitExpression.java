@@ -1,34 +1,24 @@
 package compiler.nodes.expression_nodes.term_nodes;
 
-import compiler.Token;
-import compiler.Verifier;
-import compiler.Generator;
-import compiler.Error;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeVisitor;
 
 public class IntLitExpression extends NodeTerm {
     
-    public IntLitExpression(Token token) {
-        super(token);
-    }
-
-    public IntLitExpression() {
-        super();
-    }
-
-    // should be handled specifically in Verifier class
-    public String getType(Verifier v, Error handler) {
-        return "numeric";
+    public IntLitExpression(AstArena arena, int node) {
+        super(arena, node);
     }
 
     @Override
     public String toString() {
-        if (getToken() == null || getToken().getValue() == null)
+        String value = arena.value(node);
+        if (value == null)
             return "{}";
-        return String.format("%s", getToken().getValue().toString());
+        return String.format("%s", value);
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents(getToken().getValue().toString());
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitIntLit(this);
     }
 
 }
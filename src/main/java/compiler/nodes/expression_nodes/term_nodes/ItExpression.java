@@ -1,12 +1,14 @@
 package compiler.nodes.expression_nodes.term_nodes;
 
-import compiler.Generator;
-import compiler.Verifier;
-import compiler.Error;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeVisitor;
 
 public class ItExpression extends NodeTerm {
     
-    private Integer loopDepth;
+    // Data is the depth of the loop 'it' counts, filled in by the verifier
+    public ItExpression(AstArena arena, int node) {
+        super(arena, node);
+    }
 
     @Override
     public String toString() {
@@ -14,15 +16,16 @@ public class ItExpression extends NodeTerm {
     }
 
     public void setDepth(Integer depth) {
-        this.loopDepth = depth;
+        arena.setData(node, depth);
     }
 
-    public String getType(Verifier v, Error handler) {
-        return "it";
+    public Integer getDepth() {
+        int depth = arena.data(node);
+        return (depth == AstArena.UNSET) ? null : depth;
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents("__lc__" + loopDepth + "_");
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitIt(this);
     }
 
 }
@@ -1,41 +1,30 @@
 package compiler.nodes.expression_nodes.term_nodes;
 
-import compiler.Generator;
 import compiler.Token;
 import compiler.TokenType;
-import compiler.Verifier;
-import compiler.Error;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.expression_nodes.NodeExpression;
 
 public class NegationExpression extends NodeTerm {
     
-    private NodeExpression expression;
-
-    public NegationExpression(NodeExpression expression) {
-        super(new Token(TokenType.DEFAULT, 0, 0));
-        this.expression = expression;
-    }
-
-    public NodeExpression getExpression() {
-        return this.expression;
+    // Only child is the negated term
+    public NegationExpression(AstArena arena, int node) {
+        super(arena, node);
     }
 
-    public String getType(Verifier v, Error handler) {
-        expression.getType(v, handler);
-        return "numeric";
+    @Override
+    public Token getToken() {
+        return new Token(TokenType.DEFAULT, 0, 0);
     }
 
     @Override
-    public String toString() {
-        if (this.expression == null)
-            return "{}";
-        return String.format("!%s", expression.toString());
+    public NodeExpression getExpression() {
+        return arena.expression(node, 0);
     }
 
-    public void operator(Generator generator) {
-
-        generator.appendContents("!");
-        expression.operator(generator);
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitNegation(this);
     }
 
 }
@@ -2,37 +2,26 @@ package compiler.nodes.expression_nodes.term_nodes;
 
 
 import compiler.Token;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
 import compiler.nodes.expression_nodes.NodeExpression;
 
-public abstract class NodeTerm implements NodeExpression {
+public abstract class NodeTerm extends NodeView implements NodeExpression {
     
-    public Token token = null;
-    public NodeExpression expression = null;
-
-    public NodeTerm(Token token) {
-        this.token = token;
-    }
-
-    public NodeTerm(NodeExpression expression) {
-        this.expression = expression;
-    }
-
-    public NodeTerm() {}
-
-    public void setToken(Token token) {
-        this.token = token; 
+    public NodeTerm(AstArena arena, int node) {
+        super(arena, node);
     }
 
     public Token getToken() {
-        return this.token;
+        return arena.token(node);
     }
 
-    public void setExpression(NodeExpression expression) {
-        this.expression = expression;
+    public String getValue() {
+        return arena.value(node);
     }
 
     public NodeExpression getExpression() {
-        return this.expression;
+        return null;
     } 
 
 
@@ -1,36 +1,23 @@
 package compiler.nodes.expression_nodes.term_nodes;
 
-import compiler.Generator;
-import compiler.Verifier;
-import compiler.Error;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.expression_nodes.NodeExpression;
 
 public class ParenExpression extends NodeTerm {
  
-    public ParenExpression(NodeExpression expression) {
-        super(expression);
-    }
-
-    public ParenExpression() {
-        super();
-    }
-    
-    public String getType(Verifier v, Error handler) {
-        return expression.getType(v, handler);
+    // Only child is the bracketed expression
+    public ParenExpression(AstArena arena, int node) {
+        super(arena, node);
     }
 
     @Override
-    public String toString() {
-        if (getExpression() == null)
-            return "{}";
-
-        return String.format("(%s)", getExpression().toString());
+    public NodeExpression getExpression() {
+        return arena.expression(node, 0);
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents("(");
-        getExpression().operator(generator);
-        generator.appendContents(")");
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitParen(this);
     }
 
 }
@@ -1,32 +1,24 @@
 package compiler.nodes.expression_nodes.term_nodes;
 
-import compiler.Generator;
-import compiler.Token;
-import compiler.Error;
-import compiler.Verifier;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeVisitor;
 
 public class StringExpression extends NodeTerm {
     
-    public StringExpression(Token token) {
-        super(token);
-    }
-
-    public StringExpression() {
-        super();
-    }
-
-    public String getType(Verifier v, Error handler) {
-        return "str";
+    public StringExpression(AstArena arena, int node) {
+        super(arena, node);
     }
 
     @Override
     public String toString() {
-        if (getToken() == null || getToken().getValue() == null)
+        String value = arena.value(node);
+        if (value == null)
             return "{}";
-        return String.format("%s", getToken().getValue().toString());
+        return String.format("%s", value);
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents(getToken().getValue());
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitString(this);
     }
+
 }
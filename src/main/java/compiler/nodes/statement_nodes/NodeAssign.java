@@ -1,74 +1,36 @@
 package compiler.nodes.statement_nodes;
 
-
-import compiler.Generator;
-import compiler.Token;
-import compiler.nodes.expression_nodes.BinaryExpression;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.expression_nodes.NodeExpression;
-import compiler.nodes.expression_nodes.UnaryExpression;
 import compiler.nodes.expression_nodes.term_nodes.Assignable;
 
-public class NodeAssign implements NodeStatement {
+public class NodeAssign extends NodeView implements NodeStatement {
     
-    private Assignable identifier = null;
-    private NodeExpression expression = null;
-    private Token location;
-
-    public NodeAssign(Assignable identifier, NodeExpression expression, Token location) {
-        this.identifier = identifier;
-        this.expression = expression;
-        this.location = location;
-    }
-
-    public NodeAssign(Token location) {
-        this.location = location;
+    // Token is where the assignment starts, children are the target and the assigned expression
+    public NodeAssign(AstArena arena, int node) {
+        super(arena, node);
     }
 
     public int getLine() {
-        return this.location.getLine();
+        return arena.token(node).getLine();
     }
 
     public int getCol() {
-        return this.location.getCol();
+        return arena.token(node).getCol();
     }
 
     public Assignable getIdentifier() {
-        return identifier;
-    }
-
-    public void setIdentifier(Assignable identifier) {
-        this.identifier = identifier;
+        return (Assignable) arena.view(arena.child(node, 0));
     }
 
     public NodeExpression getExpression() {
-        return expression;
+        return arena.expression(node, 1);
     }
 
-    public void setExpression(NodeExpression expression) {
-        this.expression = expression;
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitAssign(this);
     }
 
-    @Override
-    public String toString() {
-        if (identifier == null || expression == null)
-            return "{}";
-
-        if (expression instanceof BinaryExpression) {
-            return String.format("%s = %s", identifier.toString(), expression.toString());
-        }
-        return String.format("%s%s", identifier.toString(), expression.toString());
-    }
-
-    public void operator(Generator generator) {
-
-        String variableName = identifier.convert();
-        if (expression instanceof UnaryExpression) {
-            generator.appendContents(variableName);
-        } else {
-            generator.appendContents(variableName + " = ");
-        }
-        expression.operator(generator);
-        generator.appendContents(";");
-    } 
-
 }
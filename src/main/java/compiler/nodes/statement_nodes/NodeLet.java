@@ -1,95 +1,41 @@
 package compiler.nodes.statement_nodes;
 
-import compiler.Error;
-import compiler.Generator;
 import compiler.Token;
-import compiler.TokenType;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.expression_nodes.NodeExpression;
 
-public class NodeLet implements NodeStatement  {
+public class NodeLet extends NodeView implements NodeStatement  {
 
-    private Token type;
-    private Token identifier = null;
-    private NodeExpression expression = null;
-    private boolean isConstant;
-    
-    public NodeLet(Token identifier, NodeExpression expression, boolean isConstant, Token type) {
-        this.identifier = identifier;
-        this.expression = expression;
-        this.isConstant = isConstant;
-        this.type = type;
+    // Token is the identifier, only child the initial value.
+    // Data is the index of the type token shifted up one bit, with the low bit set when constant
+    public NodeLet(AstArena arena, int node) {
+        super(arena, node);
     }
 
-    public NodeLet() {}
-
     public Token getType() {
-        return this.type;
+        return arena.declaredType(arena.data(node) >> 1);
     }
 
     public boolean isConstant() {
-        return this.isConstant;
-    }
-
-    public void setExpression(NodeExpression expression) {
-        this.expression = expression;
-    }
-
-    public void setIdentifier(Token identifier) {
-        this.identifier = identifier;
+        return (arena.data(node) & 1) == 1;
     }
 
     public NodeExpression getExpression() {
-        return this.expression;
+        return arena.expression(node, 0);
     }
 
     public Token getIdentifier() {
-        return this.identifier;
+        return arena.token(node);
     }
 
-    @Override
-    public String toString() {
-        if (identifier == null || expression == null)
-            return "{}";
-        return String.format("let %s = %s", identifier.getValue(), expression.toString());
+    public String getName() {
+        return arena.value(node);
     }
 
-    public void operator(Generator generator) {
-        String variableName = identifier.getValue();
-        TokenType thisType = type.getType();
-        switch (thisType) {
-            case DECLARE:
-                switch (type.getValue()) {
-                    case "int":
-                    case "bool":
-                        generator.appendContents("int " + variableName + " = ");
-                        break;
-                    case "str":
-                        generator.appendContents("char *" + variableName + " = ");
-                        break;
-                    case "char":
-                        generator.appendContents("char " + variableName + " = ");
-                        break;
-                }
-                break;
-            case ARR:
-                switch (type.getValue()) {
-                    case "int":
-                    case "bool":
-                        generator.appendContents("int " + variableName + "[] = "); 
-                        break;
-                    case "str":
-                        generator.appendContents("char *" + variableName + "[] = "); 
-                        break;
-                    case "char":
-                        generator.appendContents("char " + variableName + "[] = "); 
-                        break;
-                }
-                break;
-            default:
-                Error.handleError("Unrecognized declarative value: " + thisType);
-        }
-        expression.operator(generator);
-        generator.appendContents(";");
-    }   
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitLet(this);
+    }
 
 }
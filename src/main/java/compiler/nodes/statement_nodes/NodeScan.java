@@ -1,66 +1,40 @@
 package compiler.nodes.statement_nodes;
 
-import compiler.Generator;
 import compiler.Token;
-import compiler.Error;
-public class NodeScan implements NodeStatement {
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
+public class NodeScan extends NodeView implements NodeStatement {
     
-    private String output;
-    private boolean isConstant;
-    private Token identifier;
-    private Token type;
-
-    public NodeScan(String output, Token identifier, boolean isConstant, Token type) {
-        this.output = output;
-        this.identifier = identifier;
-        this.isConstant = isConstant;
-        this.type = type;
+    // Token is the identifier, the prompt string follows it as 'x = in "..."'.
+    // Data is the index of the type token shifted up one bit, with the low bit set when constant
+    public NodeScan(AstArena arena, int node) {
+        super(arena, node);
     }
 
     @Override
     public String toString() {
-        return String.format("let %s = in %s", identifier.getValue(), output);
+        return String.format("let %s = in %s", arena.value(node), getOutput());
     }
 
     public Token getType() { 
-        return this.type;
+        return arena.declaredType(arena.data(node) >> 1);
     }
 
     public boolean isConstant() {
-        return this.isConstant;
+        return (arena.data(node) & 1) == 1;
     }
 
     public Token getIdentifier() {
-        return this.identifier;
+        return arena.token(node);
     }
 
-    public void operator(Generator generator) {
-        // Need to add string support, generic variable at the moment for the end
-        switch (type.getType()) {
-            case DECLARE:
-                switch (type.getValue()) {
-                    case "int":
-                        generator.appendContents("    int " + identifier.getValue() + ";\n");
-                        generator.appendContents("    printf(" + output + ");\n");
-                        generator.appendContents("    scanf(\"%d\", " + "&" + identifier.getValue() + ");\n");
-                        break;
-                    case "char":
-                        // TODO
-                        generator.appendContents("    char " + identifier.getValue() + ";\n");
-                        generator.appendContents("    printf(" + output + ");\n");
-                        generator.appendContents("    scanf(\"%c\", " + "&" + identifier.getValue() + ");\n");
-                        break;
-                    case "str": // 256 bytes max
-                        String name = identifier.getValue();
-                        generator.appendContents("    char " + name + "[256 + 1];\n");
-                        generator.appendContents("    printf(" + output + ");\n");
-                        generator.appendContents("    fgets(" + name + ", sizeof(" + name + "), stdin);\n");
-                    }
-                break;
-            default:
-                Error.handleError("GENERATOR", "Attempting to scan in an unrecognized identifier");
-        }
+    public String getOutput() {
+        return arena.getTokens().value(arena.tokenIndex(node) + 3);
+    }
 
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitScan(this);
     }
 
 }
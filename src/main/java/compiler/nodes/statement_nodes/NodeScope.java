@@ -2,44 +2,26 @@ package compiler.nodes.statement_nodes;
 
 import java.util.ArrayList;
 
-import compiler.Generator;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
 
-public class NodeScope implements NodeStatement {
+public class NodeScope extends NodeView implements NodeStatement {
 
-    private ArrayList<NodeStatement> statements = new ArrayList<>();
-
-    public NodeScope() {}
-
-    @Override
-    public String toString() {
-
-        String buffer = new String("");
-        for (NodeStatement x: statements) {
-            buffer = buffer.concat("\n    " + x.toString());
-        }
-        buffer = buffer.concat("\n");
-        return buffer;
-    }
-
-    public NodeScope(ArrayList<NodeStatement> statements) {
-        this.statements = statements;
-    }
-
-    public void addStatement(NodeStatement statement) {
-        statements.add(statement);
+    // Children are the statements, in order
+    public NodeScope(AstArena arena, int node) {
+        super(arena, node);
     }
 
     public ArrayList<NodeStatement> getStatements() {
-        return this.statements;
+        ArrayList<NodeStatement> statements = new ArrayList<>();
+        for (int i = 0; i < arena.childCount(node); i++)
+            statements.add(arena.statement(node, i));
+        return statements;
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents("{");
-        for (NodeStatement statement: statements) {
-            generator.appendContents("\n    ");
-            statement.operator(generator);
-        }
-        generator.appendContents("}");
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitScope(this);
     }
 
 }
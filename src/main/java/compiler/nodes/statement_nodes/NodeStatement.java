@@ -1,9 +1,7 @@
 package compiler.nodes.statement_nodes;
 
-import compiler.Generator;
+import compiler.nodes.Visitable;
 
-public interface NodeStatement {
-    
-    public void operator(Generator generator);
+public interface NodeStatement extends Visitable {
 
 }
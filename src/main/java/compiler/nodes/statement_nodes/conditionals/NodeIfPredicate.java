@@ -1,10 +1,13 @@
 package compiler.nodes.statement_nodes.conditionals;
 
-import compiler.Generator;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
 import compiler.nodes.statement_nodes.NodeStatement;
 
-public abstract class NodeIfPredicate implements NodeStatement {
+public abstract class NodeIfPredicate extends NodeView implements NodeStatement {
     
-    public abstract void operator(Generator generator);
+    public NodeIfPredicate(AstArena arena, int node) {
+        super(arena, node);
+    }
 
 }
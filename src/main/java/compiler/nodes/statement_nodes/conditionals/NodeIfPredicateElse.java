@@ -1,37 +1,22 @@
 package compiler.nodes.statement_nodes.conditionals;
 
-import compiler.Generator;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.statement_nodes.NodeScope;
 
 public class NodeIfPredicateElse extends NodeIfPredicate {
     
-    private NodeScope scope;
-
-    public NodeIfPredicateElse() {}
-
-    public NodeIfPredicateElse(NodeScope scope) {
-        this.scope = scope;
+    // Only child is the body
+    public NodeIfPredicateElse(AstArena arena, int node) {
+        super(arena, node);
     }
 
     public NodeScope getScope() {
-        return this.scope;
-    }
-
-    public void setScope(NodeScope scope) {
-        this.scope = scope;
-    }
-
-    @Override
-    public String toString() {
-        if (scope == null)
-            return "{}";
-
-        return String.format("else %s", scope.toString().replace("\n","\n    "));
+        return arena.scope(node, 0);
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents("    else\n");
-        scope.operator(generator);
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitElse(this);
     }
 
 }
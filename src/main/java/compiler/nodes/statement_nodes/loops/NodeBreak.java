@@ -1,19 +1,22 @@
 package compiler.nodes.statement_nodes.loops;
 
-import compiler.Generator;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.statement_nodes.NodeStatement;
-public class NodeBreak implements NodeStatement {
+public class NodeBreak extends NodeView implements NodeStatement {
     
-    public NodeBreak() {}
+    public NodeBreak(AstArena arena, int node) {
+        super(arena, node);
+    }
 
     @Override 
     public String toString() {
         return "break";
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents("    break;\n");
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitBreak(this);
     }
 
-
 }
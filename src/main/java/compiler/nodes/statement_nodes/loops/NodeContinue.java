@@ -1,19 +1,22 @@
 package compiler.nodes.statement_nodes.loops;
 
-import compiler.Generator;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.statement_nodes.NodeStatement;
-public class NodeContinue implements NodeStatement {
+public class NodeContinue extends NodeView implements NodeStatement {
     
-    public NodeContinue() {}
+    public NodeContinue(AstArena arena, int node) {
+        super(arena, node);
+    }
 
     @Override 
     public String toString() {
         return "continue";
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents("    continue;\n");
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitContinue(this);
     }
 
-
 }
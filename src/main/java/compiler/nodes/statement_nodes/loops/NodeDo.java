@@ -1,41 +1,29 @@
 package compiler.nodes.statement_nodes.loops;
 
-import compiler.Generator;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.expression_nodes.NodeExpression;
 import compiler.nodes.statement_nodes.NodeScope;
 import compiler.nodes.statement_nodes.NodeStatement;
 
-public class NodeDo implements NodeStatement {
+public class NodeDo extends NodeView implements NodeStatement {
     
-    private NodeExpression expression = null;
-    private NodeScope scope = null;
-
-    public NodeDo(NodeExpression expression, NodeScope scope) {
-        this.expression = expression;
-        this.scope = scope; 
+    // Children are the condition then the body
+    public NodeDo(AstArena arena, int node) {
+        super(arena, node);
     }
 
     public NodeExpression getExpression() {
-        return this.expression;
+        return arena.expression(node, 0);
     }
 
     public NodeScope getScope() {
-        return this.scope;
-    }
-
-    @Override
-    public String toString() {
-        if (expression == null || scope == null)
-            return "{}";
-        return String.format("do %s while %s" , scope.toString().replace("\n", "\n   "), expression.toString());
+        return arena.scope(node, 1);
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents("    do\n");
-        scope.operator(generator);
-        generator.appendContents("    while (");
-        expression.operator(generator);
-        generator.appendContents(");\n");
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitDo(this);
     }
 
 }
@@ -1,63 +1,37 @@
 package compiler.nodes.statement_nodes.loops;
 
-import compiler.Generator;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.expression_nodes.NodeExpression;
 import compiler.nodes.statement_nodes.NodeScope;
 import compiler.nodes.statement_nodes.NodeStatement;
 
-public class NodeFor implements NodeStatement {
+public class NodeFor extends NodeView implements NodeStatement {
     
-    private NodeStatement initializer;
-    private NodeExpression condition;
-    private NodeStatement iterator;
-    private NodeScope scope;
-    
-    public NodeFor(NodeStatement initializer, NodeExpression condition, NodeStatement iterator, NodeScope scope) {
-        this.initializer = initializer;
-        this.condition = condition;
-        this.iterator = iterator;
-        this.scope = scope;
+    // Children are the initializer, condition, iterator and body, the first three may be missing
+    public NodeFor(AstArena arena, int node) {
+        super(arena, node);
     }
 
     public NodeStatement getInitializer() {
-        return this.initializer;
+        return arena.statement(node, 0);
     }
 
     public NodeExpression getCondition() {
-        return this.condition;
+        return arena.expression(node, 1);
     }
 
     public NodeStatement getIterator() {
-        return this.iterator;
+        return arena.statement(node, 2);
     }
 
     public NodeScope getScope() {
-        return this.scope;
+        return arena.scope(node, 3);
     }
 
-    @Override 
-    public String toString() {
-        String init = (initializer == null) ? "": initializer.toString();
-        String cond = (condition == null) ? "": condition.toString();
-        String iter = (iterator == null) ? "": iterator.toString();
-        return String.format("for (%s; %s; %s) %s", init, cond, iter, scope.toString().replace("\n", "\n    "));
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitFor(this);
     }
 
-    public void operator(Generator generator) {
-     
-        generator.appendContents("for (");
-        if (initializer != null)
-            initializer.operator(generator);
-        generator.removeSemicolon();
-        generator.appendContents("; ");
-        if (condition != null)
-            condition.operator(generator);
-        generator.removeSemicolon();
-        generator.appendContents("; ");
-        if (iterator != null)
-            iterator.operator(generator);
-        generator.removeSemicolon();
-        generator.appendContents(")\n");
-        scope.operator(generator);
-    }
 }
@@ -1,55 +1,37 @@
 package compiler.nodes.statement_nodes.loops;
 
-import compiler.Generator;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.statement_nodes.NodeScope;
 import compiler.nodes.statement_nodes.NodeStatement;
 
-public class NodeLoop implements NodeStatement {
+public class NodeLoop extends NodeView implements NodeStatement {
     
-    private NodeScope scope = null;
-    private String count;
-    private Integer depth;
-
-    public NodeLoop(NodeScope scope) {
-        this.scope = scope;
+    // Token is the repeat count if one was given, only child the body. Data is the loop's depth, filled in by the verifier
+    public NodeLoop(AstArena arena, int node) {
+        super(arena, node);
     }
 
-    public NodeLoop(NodeScope scope, String count) {
-        this.scope = scope;
-        this.count = count;
+    public void setDepth(Integer depth) {
+        arena.setData(node, depth);
     }
 
-    public void setDepth(Integer depth) {
-        this.depth = depth;
+    public Integer getDepth() {
+        int depth = arena.data(node);
+        return (depth == AstArena.UNSET) ? null : depth;
     }
 
     public NodeScope getScope() {
-        return this.scope;
+        return arena.scope(node, 0);
     }
 
     public String getCount() {
-        return this.count;
-    }
-
-    @Override
-    public String toString() {
-        if (scope == null)
-            return "{}";
-        if (count == null)
-            return String.format("loop%s", scope.toString().replace("\n","\n    "));
-        else
-            return String.format("loop %s%s", count.toString(), scope.toString().replace("\n","\n    "));
-
-
+        return (arena.tokenIndex(node) == AstArena.NONE) ? null : arena.value(node);
     }
 
-    public void operator(Generator generator) {
-        String keyword = "__lc__" + depth + "_";
-        if (count == null)
-            generator.appendContents("for (int " + keyword + " = 0;;" + keyword + "++)\n");
-        else
-            generator.appendContents("for (int " + keyword + " = 0; " + keyword + " < " + count + "; " + keyword + "++)\n");
-        scope.operator(generator);
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitLoop(this);
     }
 
 }
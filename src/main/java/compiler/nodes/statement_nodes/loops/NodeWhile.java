@@ -1,41 +1,29 @@
 package compiler.nodes.statement_nodes.loops;
 
-import compiler.Generator;
+import compiler.nodes.AstArena;
+import compiler.nodes.NodeView;
+import compiler.nodes.NodeVisitor;
 import compiler.nodes.expression_nodes.NodeExpression;
 import compiler.nodes.statement_nodes.NodeScope;
 import compiler.nodes.statement_nodes.NodeStatement;
 
-public class NodeWhile implements NodeStatement{
+public class NodeWhile extends NodeView implements NodeStatement {
     
-    private NodeExpression expression;
-    private NodeScope scope;
-
-    public NodeWhile(NodeExpression expression, NodeScope scope) {
-        this.expression = expression;
-        this.scope = scope;
-    }    
+    // Children are the condition then the body
+    public NodeWhile(AstArena arena, int node) {
+        super(arena, node);
+    }
 
     public NodeExpression getExpression() {
-        return this.expression;
+        return arena.expression(node, 0);
     }
 
     public NodeScope getScope() {
-        return this.scope;
-    }
-
-    @Override
-    public String toString() {
-        if (expression == null || scope == null)
-            return "{}";
-        return String.format("while %s %s" , expression.toString(), scope.toString().replace("\n", "\n    "));
-
+        return arena.scope(node, 1);
     }
 
-    public void operator(Generator generator) {
-        generator.appendContents("while (");
-        expression.operator(generator);
-        generator.appendContents(")\n");
-        scope.operator(generator);
+    public <R> R accept(NodeVisitor<R> visitor) {
+        return visitor.visitWhile(this);
     }
 
 }
@@ -0,0 +1,41 @@
+package compiler;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+// Compares a whole vector of bytes (16 to 64 depending on the CPU) per step, the tail is left to the plain loop.
+// Only ever loaded through ByteScanner.best(), so the module isn't needed unless it's asked for
+public class VectorByteScanner implements ByteScanner {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private final ScalarByteScanner tail = new ScalarByteScanner();
+
+    public int find(SourceFile source, int from, int to, int stop) {
+        ByteBuffer bytes = source.buffer();
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            ByteVector v = ByteVector.fromByteBuffer(SPECIES, bytes, i, ByteOrder.nativeOrder());
+            // Bytes above 0x7F are negative once read as signed
+            VectorMask<Byte> hits = v.eq((byte) stop).or(v.lt((byte) 0));
+            if (hits.anyTrue())
+                return i + hits.firstTrue();
+        }
+        return tail.find(source, i, to, stop);
+    }
+
+    public int skipBlanks(SourceFile source, int from, int to) {
+        ByteBuffer bytes = source.buffer();
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            ByteVector v = ByteVector.fromByteBuffer(SPECIES, bytes, i, ByteOrder.nativeOrder());
+            VectorMask<Byte> others = v.eq((byte) ' ').or(v.eq((byte) '\t')).not();
+            if (others.anyTrue())
+                return i + others.firstTrue();
+        }
+        return tail.skipBlanks(source, i, to);
+    }
+
+}